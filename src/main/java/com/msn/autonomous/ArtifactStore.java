@@ -0,0 +1,85 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-run store for large payloads (agent responses, merge inputs, build logs) that used to be dumped to the
+ * console and log.
+ * <p>
+ * Each payload is written gzip-compressed to {@code ../temp/.runs/<repository>/<run-id>/}, and the log only
+ * carries the reference returned by {@link #put}: the artifact's file, size and SHA-256. Until the project is known
+ * the store writes to the system temp directory. The store is kept outside the working tree on purpose: resets and
+ * worktree recycling clean ignored files, which would delete a run's artifacts minutes after it ended.
+ */
+final class ArtifactStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactStore.class);
+
+    static final String RUNS_DIR_NAME = ".runs";
+
+    private static final String RUN_ID = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private static final AtomicInteger sequence = new AtomicInteger();
+    private static volatile Path runDir = Paths.get(System.getProperty("java.io.tmpdir"), "adk-runs", RUN_ID);
+
+    private ArtifactStore() {
+    }
+
+    static String runId() {
+        return RUN_ID;
+    }
+
+    /**
+     * Moves the store into {@code <cacheDir>/.runs/<repository>/<run-id>} for the rest of the run.
+     */
+    static void open(Path cacheDir, String repositoryName) {
+        runDir = cacheDir.resolve(RUNS_DIR_NAME).resolve(repositoryName.replaceAll("[^A-Za-z0-9._-]+", "_")).resolve(RUN_ID);
+        logger.info("Run artifacts are stored in {}", runDir);
+    }
+
+    /**
+     * Stores a payload and returns a short reference for the log.
+     *
+     * @param name a descriptive name, e.g. the agent or file the payload belongs to
+     */
+    static String put(String name, String content) {
+        String payload = content != null ? content : "";
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(bytes);
+        String fileName = String.format("%04d-%s.txt.gz", sequence.incrementAndGet(), name.replaceAll("[^A-Za-z0-9._-]+", "_"));
+        Path file = runDir.resolve(fileName);
+        try {
+            Files.createDirectories(runDir);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not store artifact {}: {}", fileName, e.getMessage());
+            return String.format("[artifact %s not stored, %d bytes, sha256 %s]", name, bytes.length, hash.substring(0, 12));
+        }
+        return String.format("[artifact %s, %d bytes, sha256 %s]", file, bytes.length, hash.substring(0, 12));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the outcome of builds by a fingerprint of everything the build reads: {@code pom.xml}, {@code src/**},
+ * the poms of the enclosing modules up to the repository root (a monorepo service inherits from them), the Maven goal
+ * and the JDK.
+ * <p>
+ * A tree that is already known to pass or fail is not rebuilt. Only compilation failures are recorded as failures,
+ * since the same inputs fail the same way; a failing test may be flaky and a crash may be the machine's fault, so
+ * those are built again. Recorded failures also expire after {@link #FAILURE_TTL}. The cache lives in
+ * {@code ADK_BUILD_CACHE} (default {@code ../temp/.build-cache}) so it is shared between runs and never committed with
+ * the project.
+ */
+final class BuildOutcomeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuildOutcomeCache.class);
+
+    static final String ENV_BUILD_CACHE = "ADK_BUILD_CACHE";
+    private static final String PASSED_SUFFIX = ".passed";
+    private static final String FAILED_SUFFIX = ".failed";
+    private static final Duration FAILURE_TTL = Duration.ofHours(6);
+
+    private BuildOutcomeCache() {
+    }
+
+    /**
+     * A previously recorded build outcome.
+     */
+    static final class Outcome {
+        final boolean passed;
+        final String buildLog;
+
+        Outcome(boolean passed, String buildLog) {
+            this.passed = passed;
+            this.buildLog = buildLog;
+        }
+    }
+
+    /**
+     * Computes a SHA-256 fingerprint of the build's inputs: the goal, the JDK, the poms of the enclosing modules,
+     * {@code pom.xml} and every file under {@code src}, in path order.
+     *
+     * @return the hex fingerprint, or null if the tree could not be read.
+     */
+    static String fingerprint(Path projectDir, String goal) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, "goal", goal.getBytes(StandardCharsets.UTF_8));
+            String jdk = System.getProperty("java.version") + " " + System.getenv().getOrDefault("JAVA_HOME", "");
+            update(digest, "jdk", jdk.getBytes(StandardCharsets.UTF_8));
+            Path moduleDir = projectDir.toAbsolutePath().normalize();
+            // A parent pom changes what the service builds with; the walk stops at the repository root.
+            for (Path dir = moduleDir; !Files.exists(dir.resolve(".git")) && dir.getParent() != null; ) {
+                dir = dir.getParent();
+                Path ancestorPom = dir.resolve("pom.xml");
+                if (Files.exists(ancestorPom)) {
+                    update(digest, moduleDir.relativize(ancestorPom).toString().replace('\\', '/'), Files.readAllBytes(ancestorPom));
+                }
+            }
+            Path pom = projectDir.resolve("pom.xml");
+            if (Files.exists(pom)) {
+                update(digest, "pom.xml", Files.readAllBytes(pom));
+            }
+            Path src = projectDir.resolve("src");
+            if (Files.isDirectory(src)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(src)) {
+                    files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    update(digest, projectDir.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            logger.warn("⚠️ Could not fingerprint project tree {}: {}", projectDir, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Looks up the recorded outcome for a fingerprint.
+     *
+     * @return the outcome, or null if this tree has not been built before.
+     */
+    static Outcome lookup(String fingerprint) {
+        if (fingerprint == null) {
+            return null;
+        }
+        try {
+            Path dir = cacheDir();
+            if (Files.exists(dir.resolve(fingerprint + PASSED_SUFFIX))) {
+                return new Outcome(true, null);
+            }
+            Path failed = dir.resolve(fingerprint + FAILED_SUFFIX);
+            if (Files.exists(failed)) {
+                if (Files.getLastModifiedTime(failed).toInstant().plus(FAILURE_TTL).isBefore(Instant.now())) {
+                    Files.deleteIfExists(failed);
+                    return null;
+                }
+                return new Outcome(false, Files.readString(failed, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not read build outcome cache: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Records a build outcome. Failures other than compilation errors (failing tests, dependency resolution,
+     * network, crashes, interruption) are not recorded because the same tree may pass on the next attempt.
+     */
+    static void record(String fingerprint, String buildLog) {
+        if (fingerprint == null) {
+            return;
+        }
+        boolean passed = buildLog == null;
+        if (!passed && !isCompilationFailure(buildLog)) {
+            return;
+        }
+        try {
+            Path dir = cacheDir();
+            Files.createDirectories(dir);
+            Path target = dir.resolve(fingerprint + (passed ? PASSED_SUFFIX : FAILED_SUFFIX));
+            Path tmp = Files.createTempFile(dir, fingerprint, ".tmp");
+            Files.writeString(tmp, passed ? "" : buildLog, StandardCharsets.UTF_8);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not record build outcome: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isCompilationFailure(String buildLog) {
+        return (buildLog.contains("COMPILATION ERROR") || buildLog.contains("Compilation failure"))
+                && !buildLog.contains("OutOfMemoryError");
+    }
+
+    /**
+     * The directory the outcomes are recorded in.
+     */
+    static Path cacheDir() {
+        String configured = System.getenv(ENV_BUILD_CACHE);
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured.trim());
+        }
+        Path parent = Paths.get("").toAbsolutePath().getParent();
+        return (parent != null ? parent : Paths.get("").toAbsolutePath()).resolve("temp").resolve(".build-cache");
+    }
+
+    private static void update(MessageDigest digest, String relativePath, byte[] content) {
+        digest.update(relativePath.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(Integer.toString(content.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(content);
+    }
+}
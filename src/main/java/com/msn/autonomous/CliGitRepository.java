@@ -0,0 +1,295 @@
+package com.msn.autonomous;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link GitRepository} backed by the git command line.
+ * <p>
+ * Each logical operation runs as few git processes as possible (a reset to the remote is one fetch of the single
+ * branch, one forced checkout and one clean that keeps build output), and reads of committed files are served by a single long-lived
+ * {@code git cat-file --batch} process instead of one {@code git show} per file. One instance is shared per working
+ * tree. Git never prompts: a missing credential fails the command instead of blocking the run.
+ * <p>
+ * {@link JGitRepository} delegates to it for the operations that stay on the command line, and {@code ADK_GIT=cli}
+ * uses it for everything.
+ */
+final class CliGitRepository implements GitRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CliGitRepository.class);
+
+    private static final String BUILD_OUTPUT_PATTERN = "target/";
+    // The workflow's state at the repository root (the recorded SRS); every sparse scope keeps it.
+    private static final String STATE_DIR = ".ai-state";
+
+    private static final Map<Path, CliGitRepository> openRepositories = new ConcurrentHashMap<>();
+
+    private final Path workTree;
+    private Process catFile;
+    private OutputStream catFileInput;
+    private InputStream catFileOutput;
+
+    private CliGitRepository(Path workTree) {
+        this.workTree = workTree;
+    }
+
+    static CliGitRepository open(Path workTree) {
+        return openRepositories.computeIfAbsent(workTree.toAbsolutePath().normalize(), CliGitRepository::new);
+    }
+
+    static void closeAll() {
+        for (Path workTree : openRepositories.keySet()) {
+            CliGitRepository repository = openRepositories.remove(workTree);
+            if (repository != null) {
+                repository.close();
+            }
+        }
+    }
+
+    static CliGitRepository cloneFrom(String url, String branch, Path workTree, String sparseScope) throws IOException, InterruptedException {
+        Path target = workTree.toAbsolutePath().normalize();
+        // Only the single-branch history needed for analysis is cloned, and file contents are left on the server
+        // until a checkout or read needs them (a blobless partial clone).
+        List<String> clone = new ArrayList<>(List.of("clone", "--filter=blob:none", "--branch", branch, "--single-branch"));
+        if (sparseScope != null) {
+            // Check out only the root files at first; the scope below then fetches just the service's contents.
+            clone.add("--sparse");
+        }
+        clone.add(url);
+        clone.add(target.toString());
+        run(target.getParent(), clone.toArray(new String[0]));
+        CliGitRepository repository = open(target);
+        if (sparseScope != null) {
+            repository.setSparseScope(sparseScope);
+        }
+        return repository;
+    }
+
+    @Override
+    public Path workTree() {
+        return workTree;
+    }
+
+    @Override
+    public void resetToRemote(String branch) throws IOException, InterruptedException {
+        fetch(branch);
+        resetToFetched(branch);
+    }
+
+    @Override
+    public void resetToFetched(String branch) throws IOException, InterruptedException {
+        // One forced checkout replaces "checkout <branch>" followed by "reset --hard origin/<branch>".
+        run(workTree, "checkout", "--force", "-B", branch, "origin/" + branch);
+        clean();
+    }
+
+    @Override
+    public void fetch(String branch) throws IOException, InterruptedException {
+        run(workTree, "fetch", "origin", branch);
+    }
+
+    @Override
+    public Instant lastFetched() {
+        // Every fetch rewrites FETCH_HEAD. Linked worktrees (whose .git is a file) report null.
+        Path fetchHead = workTree.resolve(".git").resolve("FETCH_HEAD");
+        try {
+            return Files.exists(fetchHead) ? Files.getLastModifiedTime(fetchHead).toInstant() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void checkoutRemote(String branch) throws IOException, InterruptedException {
+        run(workTree, "checkout", "--force", "--detach", "origin/" + branch);
+        clean();
+    }
+
+    /**
+     * Removes untracked and ignored files, except Maven build output: the compiler's stale-source detection
+     * recompiles what the checkout changed, and everything else is reused by the next build.
+     */
+    private void clean() throws IOException, InterruptedException {
+        // With -x the ignore rules are not used, but -e patterns still are; "target/" matches at any depth.
+        run(workTree, "clean", "-fdx", "-e", BUILD_OUTPUT_PATTERN);
+    }
+
+    @Override
+    public GitRepository addWorktree(Path path, String branch) throws IOException, InterruptedException {
+        Path target = path.toAbsolutePath().normalize();
+        // A stale registration (its directory was deleted) would make git refuse the path.
+        run(workTree, "worktree", "prune");
+        run(workTree, "worktree", "add", "--no-checkout", "--detach", target.toString(), "origin/" + branch);
+        return open(target);
+    }
+
+    @Override
+    public void setSparseScope(String scope) throws IOException, InterruptedException {
+        if (scope != null) {
+            run(workTree, "sparse-checkout", "set", "--cone", scope, STATE_DIR);
+        } else if ("true".equals(config("core.sparseCheckout"))) {
+            run(workTree, "sparse-checkout", "disable");
+        }
+    }
+
+    @Override
+    public void createBranch(String branch) throws IOException, InterruptedException {
+        run(workTree, "checkout", "-b", branch);
+    }
+
+    @Override
+    public void commitPaths(List<String> paths, String message) throws IOException, InterruptedException {
+        // Pathspecs that match nothing are fatal, and ignored ones fail the add, so only files git can stage are passed.
+        List<String> stageable = new ArrayList<>();
+        for (String path : paths) {
+            if (Files.exists(workTree.resolve(path))) {
+                stageable.add(path);
+            }
+        }
+        if (!stageable.isEmpty()) {
+            String ignored = runAllowingFailure(workTree, String.join("\0", stageable) + "\0", "check-ignore", "--stdin", "-z");
+            if (!ignored.isEmpty()) {
+                List<String> ignoredPaths = List.of(ignored.split("\0"));
+                logger.warn("⚠️ Not committing paths ignored by .gitignore: {}", ignoredPaths);
+                stageable.removeAll(ignoredPaths);
+            }
+        }
+        if (stageable.isEmpty()) {
+            throw new IOException("None of the written files can be committed.");
+        }
+        // One index update for all paths; the list goes through stdin, so its length is not limited by the command line.
+        runWithInput(workTree, String.join("\0", stageable) + "\0", "add", "--all", "--pathspec-from-file=-", "--pathspec-file-nul");
+        run(workTree, "commit", "-m", message);
+    }
+
+    @Override
+    public void push(String branch) throws IOException, InterruptedException {
+        run(workTree, "push", "origin", branch);
+    }
+
+    @Override
+    public synchronized String readCommitted(String relativePath) throws IOException {
+        if (catFile == null || !catFile.isAlive()) {
+            startCatFile();
+        }
+        try {
+            // "./" resolves the path against the directory the handle was opened on, which may be a service
+            // directory inside the repository.
+            catFileInput.write(("HEAD:./" + relativePath + "\n").getBytes(StandardCharsets.UTF_8));
+            catFileInput.flush();
+            // The reply is "<oid> blob <size>\n<content>\n", or "<name> missing\n".
+            String header = readLine(catFileOutput);
+            String[] parts = header.split(" ");
+            if (parts.length != 3 || !"blob".equals(parts[1])) {
+                return null;
+            }
+            byte[] content = catFileOutput.readNBytes(Integer.parseInt(parts[2]));
+            catFileOutput.read(); // trailing newline
+            return new String(content, StandardCharsets.UTF_8);
+        } catch (IOException | NumberFormatException e) {
+            close();
+            throw new IOException("Could not read HEAD:" + relativePath + " - " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (catFile != null) {
+            try {
+                catFileInput.close();
+            } catch (IOException e) {
+                logger.debug("Could not close git cat-file input: {}", e.getMessage());
+            }
+            catFile.destroy();
+            catFile = null;
+        }
+    }
+
+    private void startCatFile() throws IOException {
+        catFile = processBuilder(workTree, "cat-file", "--batch")
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        catFileInput = catFile.getOutputStream();
+        catFileOutput = new BufferedInputStream(catFile.getInputStream());
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("git cat-file exited");
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a configuration value, or returns null if it is not set.
+     */
+    private String config(String key) throws IOException, InterruptedException {
+        Process process = processBuilder(workTree, "config", "--bool", key).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        return process.waitFor() == 0 ? output : null;
+    }
+
+    /**
+     * Runs a git command whose non-zero exit is an answer rather than an error (such as check-ignore's "nothing
+     * matched"), returning its standard output.
+     */
+    private static String runAllowingFailure(Path directory, String input, String... args) throws IOException, InterruptedException {
+        Process process = processBuilder(directory, args).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        process.waitFor();
+        return output;
+    }
+
+    private static ProcessBuilder processBuilder(Path directory, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        ProcessBuilder pb = new ProcessBuilder(command).directory(directory.toFile());
+        pb.environment().put("GIT_TERMINAL_PROMPT", "0");
+        return pb;
+    }
+
+    private static String run(Path directory, String... args) throws IOException, InterruptedException {
+        return runWithInput(directory, null, args);
+    }
+
+    /**
+     * Runs git with {@code input} (if not null) on its standard input.
+     */
+    private static String runWithInput(Path directory, String input, String... args) throws IOException, InterruptedException {
+        Process process = processBuilder(directory, args).redirectErrorStream(true).start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            if (input != null) {
+                stdin.write(input.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            logger.error("git {} failed: {}", args[0], ArtifactStore.put("git-" + args[0], output));
+            throw new IOException("Command failed with exit code " + exitCode + ": git " + String.join(" ", args) + "\n\n" + output);
+        }
+        return output;
+    }
+}
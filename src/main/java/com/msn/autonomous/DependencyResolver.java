@@ -0,0 +1,178 @@
+package com.msn.autonomous;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Derives a project's dependency list from the user story without a model round trip.
+ * <p>
+ * A keyword rule table maps the features a story mentions onto starters and drivers, which are checked against the
+ * Spring Boot BOM index. The result is deterministic and never carries a hallucinated version: BOM-managed artifacts
+ * are listed without a version, and the few artifacts outside the BOM that a rule knows about carry the version
+ * pinned for the project's Spring Boot line. When the BOM is unavailable or a matched rule needs an artifact outside
+ * the BOM with no pin for that line, the resolution is incomplete and the DependencyAgent still has to be asked.
+ */
+final class DependencyResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyResolver.class);
+
+    /**
+     * What every generated service needs: the code generator writes REST controllers, JPA repositories and Lombok,
+     * and the generated application.yml configures a PostgreSQL datasource.
+     */
+    private static final List<String> BASE_DEPENDENCIES = List.of(
+            "org.springframework.boot:spring-boot-starter-web",
+            "org.springframework.boot:spring-boot-starter-data-jpa",
+            "org.postgresql:postgresql:runtime",
+            "org.projectlombok:lombok:optional");
+
+    /**
+     * Keyword rules, in the order their dependencies are listed. Patterns are matched case-insensitively against the
+     * story.
+     */
+    private static final Map<Pattern, List<String>> RULES = new LinkedHashMap<>();
+
+    /**
+     * The coordinates of artifacts outside the BOM that a rule lists, by the Spring Boot major.minor line they are
+     * known to work with. A line the table does not list leaves the artifact to the DependencyAgent.
+     */
+    private static final Map<String, Map<String, String>> PINNED = Map.of(
+            "org.springdoc:springdoc-openapi-starter-webmvc-ui", Map.of(
+                    "2.7", "org.springdoc:springdoc-openapi-ui:1.8.0",
+                    "3.0", "org.springdoc:springdoc-openapi-starter-webmvc-ui:2.1.0",
+                    "3.1", "org.springdoc:springdoc-openapi-starter-webmvc-ui:2.2.0",
+                    "3.2", "org.springdoc:springdoc-openapi-starter-webmvc-ui:2.5.0",
+                    "3.3", "org.springdoc:springdoc-openapi-starter-webmvc-ui:2.6.0",
+                    "3.4", "org.springdoc:springdoc-openapi-starter-webmvc-ui:2.7.0",
+                    "3.5", "org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.9"));
+
+    static {
+        rule("\\bvalidat|\\bconstraint|\\bmandatory\\b|must not be (blank|empty|null)",
+                "org.springframework.boot:spring-boot-starter-validation");
+        rule("\\bopen-?api\\b|\\bswagger\\b|\\bapi doc",
+                "org.springdoc:springdoc-openapi-starter-webmvc-ui");
+        rule("\\bsecurity\\b|\\bauthenticat|\\bauthori[sz]|\\blog ?in\\b",
+                "org.springframework.boot:spring-boot-starter-security");
+        rule("\\bjwt\\b|\\boauth",
+                "org.springframework.boot:spring-boot-starter-oauth2-resource-server");
+        rule("\\bactuator\\b|\\bhealth ?check|\\bmetrics\\b",
+                "org.springframework.boot:spring-boot-starter-actuator");
+        rule("\\bcach(e|ed|ing)\\b",
+                "org.springframework.boot:spring-boot-starter-cache");
+        rule("\\bredis\\b",
+                "org.springframework.boot:spring-boot-starter-data-redis");
+        rule("\\bmongo",
+                "org.springframework.boot:spring-boot-starter-data-mongodb");
+        rule("\\bkafka\\b",
+                "org.springframework.kafka:spring-kafka");
+        rule("\\brabbit|\\bamqp\\b",
+                "org.springframework.boot:spring-boot-starter-amqp");
+        rule("\\be-?mail\\b",
+                "org.springframework.boot:spring-boot-starter-mail");
+        rule("\\bwebflux\\b|\\breactive\\b",
+                "org.springframework.boot:spring-boot-starter-webflux");
+        rule("\\bwebsocket",
+                "org.springframework.boot:spring-boot-starter-websocket");
+        rule("\\bthymeleaf\\b",
+                "org.springframework.boot:spring-boot-starter-thymeleaf");
+        rule("\\bbatch (job|processing)\\b|\\bspring batch\\b",
+                "org.springframework.boot:spring-boot-starter-batch");
+        rule("\\bmysql\\b",
+                "com.mysql:mysql-connector-j:runtime");
+        rule("\\bh2\\b|\\bin-memory database",
+                "com.h2database:h2:runtime");
+        rule("\\bflyway\\b",
+                "org.flywaydb:flyway-core");
+        rule("\\bliquibase\\b",
+                "org.liquibase:liquibase-core");
+        rule("\\bmapstruct\\b",
+                "org.mapstruct:mapstruct");
+        rule("\\bmodel ?mapper\\b",
+                "org.modelmapper:modelmapper");
+    }
+
+    /**
+     * The outcome of resolving a story: the merged dependency list, and whether it is complete without the model.
+     */
+    static final class Resolution {
+        final List<String> dependencies;
+        final List<String> unresolved;
+
+        Resolution(List<String> dependencies, List<String> unresolved) {
+            this.dependencies = dependencies;
+            this.unresolved = unresolved;
+        }
+
+        boolean isComplete() {
+            return unresolved.isEmpty();
+        }
+    }
+
+    private DependencyResolver() {
+    }
+
+    private static void rule(String keywords, String... dependencies) {
+        RULES.put(Pattern.compile(keywords, Pattern.CASE_INSENSITIVE), List.of(dependencies));
+    }
+
+    /**
+     * Merges the existing pom dependencies, the base dependencies and those of every rule the story matches.
+     * Existing entries are kept as they are; later entries for the same {@code groupId:artifactId} are dropped.
+     */
+    static Resolution resolve(String story, List<String> existingDependencies, SpringBootBom bom) {
+        Map<String, PomModel.Dependency> merged = new LinkedHashMap<>();
+        for (String coordinate : existingDependencies) {
+            add(merged, coordinate);
+        }
+        for (String coordinate : BASE_DEPENDENCIES) {
+            add(merged, coordinate);
+        }
+        for (Map.Entry<Pattern, List<String>> rule : RULES.entrySet()) {
+            if (rule.getKey().matcher(story).find()) {
+                rule.getValue().forEach(coordinate -> add(merged, pinned(coordinate, bom.springBootVersion())));
+            }
+        }
+
+        List<String> dependencies = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        for (PomModel.Dependency dependency : merged.values()) {
+            dependencies.add(dependency.toString());
+            if (!bom.isAvailable() || (dependency.version == null && !bom.manages(dependency.groupId, dependency.artifactId))) {
+                unresolved.add(dependency.key());
+            }
+        }
+        if (!bom.isAvailable()) {
+            logger.info("No Spring Boot {} BOM index; dependencies are left to the DependencyAgent.", bom.springBootVersion());
+        } else if (!unresolved.isEmpty()) {
+            logger.info("Dependencies outside the Spring Boot {} BOM need the DependencyAgent: {}", bom.springBootVersion(), unresolved);
+        } else {
+            logger.info("✅ Resolved {} dependencies locally against the Spring Boot {} BOM.", dependencies.size(), bom.springBootVersion());
+        }
+        return new Resolution(dependencies, unresolved);
+    }
+
+    /**
+     * The coordinate pinned for the Spring Boot version's major.minor line, or {@code coordinate} as it is.
+     */
+    static String pinned(String coordinate, String springBootVersion) {
+        Map<String, String> byLine = PINNED.get(coordinate);
+        if (byLine == null || springBootVersion == null) {
+            return coordinate;
+        }
+        String[] segments = springBootVersion.split("\\.");
+        String line = segments.length > 1 ? segments[0] + "." + segments[1] : springBootVersion;
+        return byLine.getOrDefault(line, coordinate);
+    }
+
+    private static void add(Map<String, PomModel.Dependency> merged, String coordinate) {
+        PomModel.Dependency dependency = PomModel.Dependency.parse(coordinate);
+        if (dependency != null) {
+            merged.putIfAbsent(dependency.key(), dependency);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks a dependency list against the Spring Boot BOM index and the shared local Maven repository before anything
+ * is built, without touching the network.
+ * <p>
+ * Problems that would otherwise only surface as a failed {@code mvn verify} (and a wasted heal iteration, since the
+ * BuildCorrectorAgent does not edit the pom) are either corrected or reported:
+ * <ul>
+ *     <li>an explicit version for an artifact the BOM manages is dropped, so the managed version is used;</li>
+ *     <li>a version that is not in the local repository is corrected to the nearest version that is in the same
+ *     major.minor line;</li>
+ *     <li>an artifact without a version that the BOM does not manage, and of which no version is known locally, is an
+ *     error.</li>
+ * </ul>
+ * The local repository is a cache of what earlier builds downloaded, not a list of the versions that exist: artifacts
+ * it has never seen, and versions in a line it has never seen, cannot be judged offline and are left for Maven to
+ * resolve.
+ */
+final class DependencyValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyValidator.class);
+
+    private static final Pattern PRE_RELEASE = Pattern.compile("(^|[.-])(alpha|beta|rc|cr|m|milestone|snapshot)\\d*([.-]|$)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The validated list, with the corrections made and the errors that remain.
+     */
+    static final class Result {
+        final List<String> dependencies;
+        final List<String> corrections;
+        final List<String> errors;
+
+        Result(List<String> dependencies, List<String> corrections, List<String> errors) {
+            this.dependencies = dependencies;
+            this.corrections = corrections;
+            this.errors = errors;
+        }
+
+        boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        /**
+         * A Markdown summary of the errors and corrections.
+         */
+        String report() {
+            StringBuilder report = new StringBuilder();
+            if (!errors.isEmpty()) {
+                report.append("## Invalid dependencies\n\n");
+                errors.forEach(error -> report.append("- ").append(error).append('\n'));
+            }
+            if (!corrections.isEmpty()) {
+                report.append(report.length() > 0 ? "\n" : "").append("## Corrected dependencies\n\n");
+                corrections.forEach(correction -> report.append("- ").append(correction).append('\n'));
+            }
+            return report.toString();
+        }
+    }
+
+    private DependencyValidator() {
+    }
+
+    static Result validate(List<String> coordinates, SpringBootBom bom) {
+        Map<String, PomModel.Dependency> unique = new LinkedHashMap<>();
+        for (String coordinate : coordinates) {
+            PomModel.Dependency dependency = PomModel.Dependency.parse(coordinate);
+            if (dependency == null) {
+                logger.debug("Ignoring a line that is not a dependency coordinate: {}", coordinate);
+            } else if (unique.putIfAbsent(dependency.key(), dependency) != null) {
+                logger.debug("Ignoring duplicate dependency {}", coordinate);
+            }
+        }
+
+        List<String> dependencies = new ArrayList<>();
+        List<String> corrections = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (PomModel.Dependency dependency : unique.values()) {
+            String managedVersion = bom.managedVersion(dependency.groupId, dependency.artifactId);
+            PomModel.Dependency validated = dependency;
+
+            if (managedVersion != null) {
+                if (dependency.version != null && !dependency.version.equals(managedVersion)) {
+                    validated = withVersion(dependency, null);
+                    corrections.add(String.format("`%s`: version %s replaced by the Spring Boot %s managed version %s",
+                            dependency.key(), dependency.version, bom.springBootVersion(), managedVersion));
+                }
+            } else if (dependency.version == null) {
+                List<String> known = localVersions(dependency);
+                if (!bom.isAvailable()) {
+                    logger.debug("No BOM index; cannot check whether {} is managed.", dependency.key());
+                } else if (!known.isEmpty()) {
+                    String latest = newest(known);
+                    validated = withVersion(dependency, latest);
+                    corrections.add(String.format("`%s`: not managed by Spring Boot %s and had no version; using %s from the local repository",
+                            dependency.key(), bom.springBootVersion(), latest));
+                } else {
+                    errors.add(String.format("`%s` has no version, is not managed by Spring Boot %s, and no version of it is known locally",
+                            dependency.key(), bom.springBootVersion()));
+                    continue;
+                }
+            } else {
+                List<String> known = localVersions(dependency);
+                if (known.isEmpty()) {
+                    logger.info("ℹ️ {} is not in the local repository; Maven will resolve it online.", dependency);
+                } else if (!known.contains(dependency.version)) {
+                    String nearest = nearest(dependency.version, known);
+                    if (nearest == null) {
+                        logger.info("ℹ️ No version of {} in the line of {} is in the local repository; Maven will resolve it online.",
+                                dependency.key(), dependency.version);
+                    } else {
+                        validated = withVersion(dependency, nearest);
+                        corrections.add(String.format("`%s`: version %s is unknown; using the nearest known version %s",
+                                dependency.key(), dependency.version, nearest));
+                    }
+                }
+            }
+            dependencies.add(validated.toString());
+        }
+
+        corrections.forEach(correction -> logger.warn("🔧 Dependency corrected: {}", correction));
+        errors.forEach(error -> logger.error("❌ Invalid dependency: {}", error));
+        if (errors.isEmpty()) {
+            logger.info("✅ Validated {} dependencies offline ({} corrected).", dependencies.size(), corrections.size());
+        }
+        return new Result(dependencies, corrections, errors);
+    }
+
+    private static PomModel.Dependency withVersion(PomModel.Dependency dependency, String version) {
+        return new PomModel.Dependency(dependency.groupId, dependency.artifactId, version, dependency.scope, dependency.optional);
+    }
+
+    /**
+     * The versions of the artifact whose pom is in the local repository, oldest first.
+     */
+    private static List<String> localVersions(PomModel.Dependency dependency) {
+        Path artifactDir = MavenLauncher.localRepository()
+                .resolve(dependency.groupId.replace('.', '/'))
+                .resolve(dependency.artifactId);
+        if (!Files.isDirectory(artifactDir)) {
+            return List.of();
+        }
+        try (Stream<Path> versions = Files.list(artifactDir)) {
+            return versions
+                    .filter(dir -> Files.exists(dir.resolve(dependency.artifactId + "-" + dir.getFileName() + ".pom")))
+                    .map(dir -> dir.getFileName().toString())
+                    .sorted(DependencyValidator::compareVersions)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not list local versions of {}: {}", dependency.key(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Picks the known version in the requested version's major.minor line (1.6.x for 1.6.3) sharing the longest
+     * leading run of version segments with it, preferring the newest among equally close versions. Another line may
+     * belong to another Spring Boot generation, so it is never chosen. Pre-releases and snapshots are only chosen for
+     * such a request, or if the line has nothing else.
+     *
+     * @return the version, or null if no known version is in the requested line.
+     */
+    static String nearest(String requested, List<String> known) {
+        String[] wanted = requested.split("[.-]");
+        int line = Math.min(2, wanted.length);
+        List<String> inLine = known.stream()
+                .filter(version -> commonPrefix(wanted, version.split("[.-]")) >= line)
+                .collect(Collectors.toList());
+        boolean preRelease = PRE_RELEASE.matcher(requested).find();
+        Comparator<String> closest = Comparator.<String>comparingInt(version -> commonPrefix(wanted, version.split("[.-]")))
+                .thenComparing(DependencyValidator::compareVersions);
+        return inLine.stream()
+                .filter(version -> preRelease || !PRE_RELEASE.matcher(version).find())
+                .max(closest)
+                .orElse(inLine.stream().max(closest).orElse(null));
+    }
+
+    /**
+     * The newest known release, or the newest pre-release if no release is known.
+     */
+    private static String newest(List<String> known) {
+        return known.stream()
+                .filter(version -> !PRE_RELEASE.matcher(version).find())
+                .max(DependencyValidator::compareVersions)
+                .orElse(known.stream().max(DependencyValidator::compareVersions).orElse(null));
+    }
+
+    private static int commonPrefix(String[] a, String[] b) {
+        int i = 0;
+        while (i < a.length && i < b.length && a[i].equals(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Compares versions segment by segment: numeric segments numerically, others as text, and a release above its
+     * qualified variants (1.0 > 1.0-RC1).
+     */
+    static int compareVersions(String a, String b) {
+        String[] left = a.split("[.-]");
+        String[] right = b.split("[.-]");
+        for (int i = 0; i < Math.max(left.length, right.length); i++) {
+            if (i >= left.length) {
+                return right[i].matches("\\d+") ? -1 : 1;
+            }
+            if (i >= right.length) {
+                return left[i].matches("\\d+") ? 1 : -1;
+            }
+            boolean leftNumeric = left[i].matches("\\d+");
+            boolean rightNumeric = right[i].matches("\\d+");
+            int result;
+            if (leftNumeric && rightNumeric) {
+                result = new BigInteger(left[i]).compareTo(new BigInteger(right[i]));
+            } else if (leftNumeric != rightNumeric) {
+                result = leftNumeric ? 1 : -1;
+            } else {
+                result = left[i].compareToIgnoreCase(right[i]);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+}
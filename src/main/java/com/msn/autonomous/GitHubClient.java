@@ -0,0 +1,151 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Creates pull requests through the GitHub REST API.
+ * <p>
+ * All instances share one {@link HttpClient}, so requests reuse its pooled (HTTP/2 where the server offers it)
+ * connections instead of starting a {@code gh} process per pull request. The API root is {@code GITHUB_API_URL}
+ * (default {@code https://api.github.com}, set it for GitHub Enterprise) and the token is {@code GITHUB_TOKEN} or
+ * {@code GH_TOKEN}.
+ */
+final class GitHubClient {
+
+    static final String ENV_API_URL = "GITHUB_API_URL";
+    private static final String DEFAULT_API_URL = "https://api.github.com";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // "https://host/owner/repo(.git)", "ssh://git@host/owner/repo(.git)" or "git@host:owner/repo(.git)".
+    private static final Pattern REPOSITORY_PATTERN = Pattern.compile("[:/]([^/:]+)/([^/]+?)(?:\\.git)?/?$");
+
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String apiUrl;
+    private final String token;
+
+    GitHubClient(String apiUrl, String token) {
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.token = token;
+    }
+
+    static GitHubClient fromEnvironment() {
+        String apiUrl = System.getenv(ENV_API_URL);
+        String token = System.getenv("GITHUB_TOKEN");
+        if (token == null || token.isBlank()) {
+            token = System.getenv("GH_TOKEN");
+        }
+        return new GitHubClient(apiUrl != null && !apiUrl.isBlank() ? apiUrl.trim() : DEFAULT_API_URL, token);
+    }
+
+    /**
+     * A request GitHub answered with an error.
+     */
+    static final class RequestException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int statusCode;
+
+        RequestException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * Whether the same request may succeed later: server errors and rate limits. Other client errors (bad
+         * credentials, a missing branch) fail the same way until someone intervenes.
+         */
+        boolean isRetryable() {
+            return statusCode >= 500 || statusCode == 429;
+        }
+    }
+
+    /**
+     * Opens a pull request from {@code head} into {@code base}. If one is already open for {@code head}, that one is
+     * returned.
+     *
+     * @return the pull request's web URL.
+     * @throws RequestException if GitHub rejected the request. Any other IOException is a transport failure.
+     */
+    String createPullRequest(String repoUrl, String base, String head, String title, String body) throws IOException, InterruptedException {
+        if (token == null || token.isBlank()) {
+            throw new RequestException(401, "GITHUB_TOKEN (or GH_TOKEN) is not set.");
+        }
+        String repository = repositoryPath(repoUrl);
+        JSONObject request = new JSONObject()
+                .put("title", title)
+                .put("head", head)
+                .put("base", base)
+                .put("body", body);
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(apiUrl + "/repos/" + repository + "/pulls"))
+                .POST(HttpRequest.BodyPublishers.ofString(request.toString(), StandardCharsets.UTF_8)));
+        if (response.statusCode() == 201) {
+            return htmlUrl(new JSONObject(response.body()));
+        }
+        if (response.statusCode() == 422 && response.body().contains("already exists")) {
+            String existing = findOpenPullRequest(repository, head);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        throw new RequestException(response.statusCode(),
+                "Creating the pull request failed with HTTP " + response.statusCode() + ": " + response.body());
+    }
+
+    private String findOpenPullRequest(String repository, String head) throws IOException, InterruptedException {
+        String owner = repository.substring(0, repository.indexOf('/'));
+        String query = "?state=open&head=" + URLEncoder.encode(owner + ":" + head, StandardCharsets.UTF_8);
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(apiUrl + "/repos/" + repository + "/pulls" + query)).GET());
+        if (response.statusCode() != 200) {
+            throw new RequestException(response.statusCode(),
+                    "Looking up the existing pull request failed with HTTP " + response.statusCode() + ": " + response.body());
+        }
+        JSONArray pulls = new JSONArray(response.body());
+        return pulls.length() > 0 ? htmlUrl(pulls.getJSONObject(0)) : null;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request
+                        .timeout(REQUEST_TIMEOUT)
+                        .header("Accept", "application/vnd.github+json")
+                        .header("Authorization", "Bearer " + token)
+                        .header("X-GitHub-Api-Version", "2022-11-28")
+                        .header("Content-Type", "application/json")
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String htmlUrl(JSONObject pullRequest) throws IOException {
+        try {
+            return pullRequest.getString("html_url");
+        } catch (JSONException e) {
+            throw new IOException("Unexpected pull request response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Extracts {@code owner/repo} from a clone URL.
+     */
+    static String repositoryPath(String repoUrl) throws IOException {
+        Matcher matcher = REPOSITORY_PATTERN.matcher(repoUrl.trim());
+        if (!matcher.find()) {
+            throw new RequestException(400, "Not a GitHub repository URL: " + repoUrl);
+        }
+        return matcher.group(1) + "/" + matcher.group(2);
+    }
+}
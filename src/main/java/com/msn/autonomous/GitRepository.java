@@ -0,0 +1,125 @@
+package com.msn.autonomous;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The git operations the workflow performs on a project's working tree.
+ * <p>
+ * Callers open a repository once and run all their operations on it, so an implementation can keep state (an opened
+ * object database, a long-lived reader process) across calls instead of starting from scratch for every command.
+ * {@link #close()} releases that state; the repository stays usable and reacquires it on demand.
+ * <p>
+ * Handles are {@link JGitRepository in-process}, with the {@link CliGitRepository git command line} for the operations
+ * JGit cannot do and as the fallback when it cannot be used.
+ */
+interface GitRepository extends Closeable {
+
+    /**
+     * Returns the shared handle for an existing working tree, or for a directory inside one.
+     */
+    static GitRepository open(Path workTree) {
+        return JGitRepository.open(workTree);
+    }
+
+    /**
+     * Closes every shared handle and forgets it, so no reader process outlives the run that needed it. A later
+     * {@link #open(Path)} returns a new handle.
+     */
+    static void closeAll() {
+        JGitRepository.closeAll();
+        CliGitRepository.closeAll();
+    }
+
+    /**
+     * Clones a single branch of {@code url} into {@code workTree} and returns the handle for it.
+     */
+    static GitRepository cloneFrom(String url, String branch, Path workTree) throws IOException, InterruptedException {
+        return cloneFrom(url, branch, workTree, null);
+    }
+
+    /**
+     * Clones a single branch of {@code url} into {@code workTree} without file contents outside {@code sparseScope};
+     * see {@link #setSparseScope(String)}. Contents are fetched on demand when they are first read.
+     */
+    static GitRepository cloneFrom(String url, String branch, Path workTree, String sparseScope) throws IOException, InterruptedException {
+        CliGitRepository.cloneFrom(url, branch, workTree, sparseScope);
+        return open(workTree);
+    }
+
+    Path workTree();
+
+    /**
+     * Fetches {@code branch} from origin and makes the working tree match it exactly: the branch is checked out at
+     * {@code origin/<branch>}, local changes are discarded and untracked and ignored files are removed. Maven build
+     * output ({@code target/}) is kept so the next build is incremental.
+     */
+    void resetToRemote(String branch) throws IOException, InterruptedException;
+
+    /**
+     * Like {@link #resetToRemote(String)}, but against the last fetched {@code origin/<branch>}, without a fetch.
+     */
+    void resetToFetched(String branch) throws IOException, InterruptedException;
+
+    /**
+     * Updates {@code origin/<branch>} without touching the working tree.
+     */
+    void fetch(String branch) throws IOException, InterruptedException;
+
+    /**
+     * When origin was last fetched into this repository.
+     *
+     * @return the time, or null if it is unknown.
+     */
+    Instant lastFetched();
+
+    /**
+     * Makes the working tree match the last fetched {@code origin/<branch>} on a detached HEAD: local changes are
+     * discarded and untracked and ignored files other than build output are removed.
+     */
+    void checkoutRemote(String branch) throws IOException, InterruptedException;
+
+    /**
+     * Adds a linked worktree at {@code path}, sharing this repository's objects and refs, without checking out any
+     * files; {@link #checkoutRemote(String)} on the returned handle populates it.
+     */
+    GitRepository addWorktree(Path path, String branch) throws IOException, InterruptedException;
+
+    /**
+     * Limits the working tree to the files at the repository root, the workflow's {@code .ai-state} directory and the
+     * directory {@code scope}, or restores the full working tree if {@code scope} is null.
+     *
+     * @param scope a directory relative to the repository root, with {@code /} separators.
+     */
+    void setSparseScope(String scope) throws IOException, InterruptedException;
+
+    /**
+     * Creates {@code branch} at HEAD and checks it out.
+     */
+    void createBranch(String branch) throws IOException, InterruptedException;
+
+    /**
+     * Stages exactly {@code paths} in one index update and commits them, leaving every other change in the working
+     * tree alone. Paths that no longer exist or that .gitignore excludes are skipped.
+     *
+     * @param paths paths relative to the working tree root, with {@code /} separators.
+     * @throws IOException if none of the paths can be committed, or git fails.
+     */
+    void commitPaths(List<String> paths, String message) throws IOException, InterruptedException;
+
+    void push(String branch) throws IOException, InterruptedException;
+
+    /**
+     * Reads a file as committed at HEAD.
+     *
+     * @param relativePath the path relative to {@link #workTree()}, with {@code /} separators.
+     * @return the content, or null if HEAD has no such file.
+     */
+    String readCommitted(String relativePath) throws IOException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,411 @@
+package com.msn.autonomous;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link GitRepository} that runs the operations on a run's critical path in-process with JGit: creating the feature
+ * branch, committing, reading committed files and resetting the working tree to the fetched base branch. None of
+ * them starts a process, and the repository (its refs, packs and index) is opened once per handle.
+ * <p>
+ * Everything else goes to the {@link CliGitRepository} for the same directory: clone, fetch and push (which need the
+ * user's credential helpers and the partial clone protocol), sparse checkout and worktrees. The CLI also takes over
+ * where JGit cannot be used: in a sparse checkout, which JGit does not honor, and when a blob a checkout or read
+ * needs is missing from a partial clone, since only git fetches it on demand. {@code ADK_GIT=cli} turns the in-process
+ * backend off.
+ */
+final class JGitRepository implements GitRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(JGitRepository.class);
+
+    static final String ENV_GIT_BACKEND = "ADK_GIT";
+    private static final String BUILD_OUTPUT_DIR = "target";
+
+    private static final Map<Path, JGitRepository> openRepositories = new ConcurrentHashMap<>();
+
+    private final Path workTree;
+    private final File gitDir;
+    private final CliGitRepository cli;
+    private Repository repository;
+    // The handle's directory relative to the repository root, ending in "/", or empty at the root.
+    private String prefix;
+
+    private JGitRepository(Path workTree, File gitDir) {
+        this.workTree = workTree;
+        this.gitDir = gitDir;
+        this.cli = CliGitRepository.open(workTree);
+    }
+
+    /**
+     * Returns the shared in-process handle for {@code workTree}, or the CLI handle if the in-process backend is
+     * turned off or the directory is not inside a repository JGit can find.
+     */
+    static GitRepository open(Path workTree) {
+        Path target = workTree.toAbsolutePath().normalize();
+        if ("cli".equalsIgnoreCase(System.getenv().getOrDefault(ENV_GIT_BACKEND, "").trim())) {
+            return CliGitRepository.open(target);
+        }
+        JGitRepository existing = openRepositories.get(target);
+        if (existing != null) {
+            return existing;
+        }
+        File gitDir = new FileRepositoryBuilder().findGitDir(target.toFile()).getGitDir();
+        if (gitDir == null) {
+            return CliGitRepository.open(target);
+        }
+        return openRepositories.computeIfAbsent(target, dir -> new JGitRepository(dir, gitDir));
+    }
+
+    static void closeAll() {
+        for (Path workTree : openRepositories.keySet()) {
+            JGitRepository repository = openRepositories.remove(workTree);
+            if (repository != null) {
+                repository.close();
+            }
+        }
+    }
+
+    @Override
+    public Path workTree() {
+        return workTree;
+    }
+
+    @Override
+    public void resetToRemote(String branch) throws IOException, InterruptedException {
+        fetch(branch);
+        resetToFetched(branch);
+    }
+
+    @Override
+    public void resetToFetched(String branch) throws IOException, InterruptedException {
+        if (!checkoutInProcess(branch, true)) {
+            cli.resetToFetched(branch);
+        }
+    }
+
+    @Override
+    public void fetch(String branch) throws IOException, InterruptedException {
+        cli.fetch(branch);
+    }
+
+    @Override
+    public Instant lastFetched() {
+        // Every fetch rewrites FETCH_HEAD in the git directory, which for a linked worktree is its own.
+        Path fetchHead = gitDir.toPath().resolve("FETCH_HEAD");
+        try {
+            return Files.exists(fetchHead) ? Files.getLastModifiedTime(fetchHead).toInstant() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void checkoutRemote(String branch) throws IOException, InterruptedException {
+        if (!checkoutInProcess(branch, false)) {
+            cli.checkoutRemote(branch);
+        }
+    }
+
+    @Override
+    public GitRepository addWorktree(Path path, String branch) throws IOException, InterruptedException {
+        cli.addWorktree(path, branch);
+        return GitRepository.open(path);
+    }
+
+    @Override
+    public void setSparseScope(String scope) throws IOException, InterruptedException {
+        cli.setSparseScope(scope);
+    }
+
+    @Override
+    public void createBranch(String branch) throws IOException {
+        Repository repo = repository();
+        ObjectId head = repo.resolve(Constants.HEAD);
+        if (head == null) {
+            throw new IOException("Cannot create " + branch + ": HEAD does not point to a commit.");
+        }
+        RefUpdate create = repo.updateRef(Constants.R_HEADS + branch);
+        create.setNewObjectId(head);
+        create.setExpectedOldObjectId(ObjectId.zeroId());
+        create.setRefLogMessage("branch: Created from HEAD", false);
+        RefUpdate.Result created = create.update();
+        if (created != RefUpdate.Result.NEW) {
+            throw new IOException("Could not create branch " + branch + ": " + created);
+        }
+        // The new branch is at HEAD, so switching to it leaves the index and the working tree as they are.
+        RefUpdate.Result linked = checkout(repo, branch);
+        if (linked != RefUpdate.Result.NEW && linked != RefUpdate.Result.FORCED && linked != RefUpdate.Result.NO_CHANGE) {
+            throw new IOException("Could not check out branch " + branch + ": " + linked);
+        }
+    }
+
+    @Override
+    public void commitPaths(List<String> paths, String message) throws IOException, InterruptedException {
+        Repository repo = repository();
+        if (isSparse(repo)) {
+            cli.commitPaths(paths, message);
+            return;
+        }
+        List<String> stageable = new ArrayList<>();
+        for (String path : paths) {
+            if (Files.exists(workTree.resolve(path))) {
+                stageable.add(prefix + path);
+            }
+        }
+        List<String> ignored = ignoredUntracked(repo, stageable);
+        if (!ignored.isEmpty()) {
+            logger.warn("⚠️ Not committing paths ignored by .gitignore: {}", ignored.stream().map(p -> p.substring(prefix.length())).collect(Collectors.toList()));
+            stageable.removeAll(ignored);
+        }
+        if (stageable.isEmpty()) {
+            throw new IOException("None of the written files can be committed.");
+        }
+        try (Git git = Git.wrap(repo)) {
+            // One index update for all paths.
+            AddCommand add = git.add();
+            stageable.forEach(add::addFilepattern);
+            add.call();
+            git.commit().setMessage(message).call();
+        } catch (GitAPIException | JGitInternalException e) {
+            throw new IOException("Could not commit " + stageable.size() + " files: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void push(String branch) throws IOException, InterruptedException {
+        cli.push(branch);
+    }
+
+    @Override
+    public String readCommitted(String relativePath) throws IOException {
+        Repository repo = repository();
+        ObjectId headTree = repo.resolve(Constants.HEAD + "^{tree}");
+        if (headTree == null) {
+            return null;
+        }
+        try (TreeWalk walk = TreeWalk.forPath(repo, prefix + relativePath, headTree)) {
+            if (walk == null || walk.getFileMode(0).getObjectType() != Constants.OBJ_BLOB) {
+                return null;
+            }
+            ObjectId blob = walk.getObjectId(0);
+            if (!repo.getObjectDatabase().has(blob)) {
+                // Not downloaded yet in a partial clone; git fetches it on demand.
+                return cli.readCommitted(relativePath);
+            }
+            return new String(repo.open(blob, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (repository != null) {
+            repository.close();
+            repository = null;
+        }
+        cli.close();
+    }
+
+    private synchronized Repository repository() throws IOException {
+        if (repository == null) {
+            repository = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true).build();
+            Path root = repository.getWorkTree().toPath().toRealPath();
+            String relative = root.relativize(workTree.toRealPath()).toString().replace('\\', '/');
+            prefix = relative.isEmpty() ? "" : relative + "/";
+        }
+        return repository;
+    }
+
+    /**
+     * Checks out the last fetched {@code origin/<branch>}, on {@code branch} or on a detached HEAD, discarding local
+     * changes and removing untracked and ignored files other than build output.
+     *
+     * @return false, without touching anything, if the checkout has to be left to the CLI.
+     */
+    private boolean checkoutInProcess(String branch, boolean onBranch) throws IOException {
+        Repository repo = repository();
+        ObjectId target = repo.resolve(Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch + "^{commit}");
+        if (target == null || isSparse(repo) || !hasBlobsFor(repo, target)) {
+            return false;
+        }
+        if (onBranch) {
+            RefUpdate update = repo.updateRef(Constants.R_HEADS + branch);
+            update.setNewObjectId(target);
+            update.setForceUpdate(true);
+            update.setRefLogMessage("reset: moving to origin/" + branch, false);
+            check(update.update(), branch);
+            check(checkout(repo, branch), branch);
+        } else {
+            RefUpdate head = repo.updateRef(Constants.HEAD, true);
+            head.setNewObjectId(target);
+            head.setForceUpdate(true);
+            head.setRefLogMessage("checkout: moving to origin/" + branch, false);
+            if (!repo.getDirectory().equals(repo.getCommonDirectory())) {
+                // JGit would log a linked worktree's HEAD in the main worktree's reflog.
+                head.disableRefLog();
+            }
+            check(head.update(), branch);
+        }
+        try (Git git = Git.wrap(repo)) {
+            git.reset().setMode(ResetCommand.ResetType.HARD).setRef(target.name()).call();
+        } catch (GitAPIException | JGitInternalException e) {
+            throw new IOException("Could not check out origin/" + branch + ": " + e.getMessage(), e);
+        }
+        clean(repo);
+        return true;
+    }
+
+    /**
+     * Points HEAD at {@code branch} without touching the index or the working tree.
+     */
+    private static RefUpdate.Result checkout(Repository repo, String branch) throws IOException {
+        RefUpdate head = repo.updateRef(Constants.HEAD);
+        head.setRefLogMessage("checkout: moving to " + branch, false);
+        return head.link(Constants.R_HEADS + branch);
+    }
+
+    private static void check(RefUpdate.Result result, String branch) throws IOException {
+        switch (result) {
+            case NEW:
+            case FORCED:
+            case FAST_FORWARD:
+            case NO_CHANGE:
+                return;
+            default:
+                throw new IOException("Could not move to origin/" + branch + ": " + result);
+        }
+    }
+
+    /**
+     * Whether every blob that checking out {@code target} over HEAD writes is in the local object database.
+     */
+    private static boolean hasBlobsFor(Repository repo, ObjectId target) throws IOException {
+        ObjectId headTree = repo.resolve(Constants.HEAD + "^{tree}");
+        try (ObjectReader reader = repo.newObjectReader(); TreeWalk walk = new TreeWalk(repo, reader)) {
+            if (headTree != null) {
+                walk.addTree(headTree);
+                walk.setFilter(TreeFilter.ANY_DIFF);
+            }
+            int targetIndex = walk.addTree(repo.parseCommit(target).getTree());
+            walk.setRecursive(true);
+            while (walk.next()) {
+                if (walk.getFileMode(targetIndex).getObjectType() == Constants.OBJ_BLOB && !reader.has(walk.getObjectId(targetIndex))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes untracked and ignored files under the handle's directory, except Maven build output; see
+     * {@link CliGitRepository}. Nested repositories are left alone, as {@code git clean -fdx} does.
+     */
+    private void clean(Repository repo) throws IOException {
+        Path root = repo.getWorkTree().toPath();
+        List<Path> untrackedDirs = new ArrayList<>();
+        try (TreeWalk walk = new TreeWalk(repo)) {
+            int fileIndex = walk.addTree(new FileTreeIterator(repo));
+            int indexIndex = walk.addTree(new DirCacheIterator(repo.readDirCache()));
+            if (!prefix.isEmpty()) {
+                walk.setFilter(PathFilter.create(prefix.substring(0, prefix.length() - 1)));
+            }
+            while (walk.next()) {
+                if (walk.getTree(fileIndex, FileTreeIterator.class) == null) {
+                    continue;
+                }
+                boolean tracked = walk.getTree(indexIndex, DirCacheIterator.class) != null;
+                Path path = root.resolve(walk.getPathString());
+                if (walk.isSubtree()) {
+                    if (walk.getNameString().equals(BUILD_OUTPUT_DIR)) {
+                        continue;
+                    }
+                    if (!tracked) {
+                        untrackedDirs.add(path);
+                    }
+                    walk.enterSubtree();
+                } else if (!tracked && !FileMode.GITLINK.equals(walk.getFileMode(fileIndex))) {
+                    Files.delete(path);
+                }
+            }
+        }
+        // Deepest first; a directory that still holds build output or a nested repository stays.
+        Collections.reverse(untrackedDirs);
+        for (Path dir : untrackedDirs) {
+            try (Stream<Path> entries = Files.list(dir)) {
+                if (entries.findAny().isEmpty()) {
+                    Files.delete(dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the paths (relative to the repository root) that are untracked and excluded by .gitignore.
+     */
+    private static List<String> ignoredUntracked(Repository repo, List<String> paths) throws IOException {
+        List<String> ignored = new ArrayList<>();
+        if (paths.isEmpty()) {
+            return ignored;
+        }
+        try (TreeWalk walk = new TreeWalk(repo)) {
+            int fileIndex = walk.addTree(new FileTreeIterator(repo));
+            int indexIndex = walk.addTree(new DirCacheIterator(repo.readDirCache()));
+            walk.setFilter(PathFilterGroup.createFromStrings(paths));
+            walk.setRecursive(true);
+            while (walk.next()) {
+                FileTreeIterator file = walk.getTree(fileIndex, FileTreeIterator.class);
+                if (file != null && walk.getTree(indexIndex, DirCacheIterator.class) == null && file.isEntryIgnored()) {
+                    ignored.add(walk.getPathString());
+                }
+            }
+        }
+        return ignored;
+    }
+
+    /**
+     * Whether the working tree is a sparse checkout. Git keeps the setting in the worktree's own config, which JGit
+     * does not read.
+     */
+    private static boolean isSparse(Repository repo) throws IOException {
+        FileBasedConfig config = new FileBasedConfig(repo.getConfig(), new File(repo.getDirectory(), "config.worktree"), repo.getFS());
+        try {
+            config.load();
+        } catch (ConfigInvalidException e) {
+            throw new IOException("Could not read " + config.getFile() + ": " + e.getMessage(), e);
+        }
+        return config.getBoolean("core", null, "sparseCheckout", false);
+    }
+}
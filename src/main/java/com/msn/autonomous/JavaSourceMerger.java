@@ -0,0 +1,399 @@
+package com.msn.autonomous;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deterministic merge of a "Modify File" block into an existing Java file, built on the javac tree API.
+ * <p>
+ * Imports are unioned, new members are appended and members whose signatures match are replaced. The merge is a
+ * three-way merge against the committed version of the file: when a member was changed both on disk (by an
+ * earlier block of this run) and by the new block, or when anything cannot be parsed, {@link #merge} returns
+ * null and the caller falls back to the {@code CodeMergeAgent}. Existing members are never dropped.
+ */
+final class JavaSourceMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaSourceMerger.class);
+
+    private static final String SNIPPET_CLASS = "__MergeSnippet__";
+    private static final String DEFAULT_MEMBER_INDENT = "    ";
+
+    private JavaSourceMerger() {
+    }
+
+    /**
+     * A parsed source together with the positions needed to edit it as text.
+     */
+    private static final class Parsed {
+        final String source;
+        final CompilationUnitTree unit;
+        final SourcePositions positions;
+
+        Parsed(String source, CompilationUnitTree unit, SourcePositions positions) {
+            this.source = source;
+            this.unit = unit;
+            this.positions = positions;
+        }
+
+        int start(Tree tree) {
+            return (int) positions.getStartPosition(unit, tree);
+        }
+
+        int end(Tree tree) {
+            return (int) positions.getEndPosition(unit, tree);
+        }
+
+        String text(Tree tree) {
+            return source.substring(start(tree), end(tree));
+        }
+    }
+
+    private static final class Edit {
+        final int start;
+        final int end;
+        final String replacement;
+
+        Edit(int start, int end, String replacement) {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * Merges {@code incoming} (a full class or a snippet of members) into {@code existing}.
+     *
+     * @param base     the committed version of the file, or null if the file is new in this run
+     * @param existing the current content of the file
+     * @param incoming the content of the "Modify File" block
+     * @return the merged source, or null if the merge needs the CodeMergeAgent
+     */
+    static String merge(String base, String existing, String incoming) {
+        Parsed current = parse(existing);
+        if (current == null) {
+            logger.info("Existing file does not parse; deferring to CodeMergeAgent.");
+            return null;
+        }
+        ClassTree target = primaryType(current);
+        if (target == null || target.getKind() != Tree.Kind.CLASS && target.getKind() != Tree.Kind.INTERFACE) {
+            return null; // Enums, records and annotation types are left to the agent.
+        }
+
+        boolean snippet = false;
+        Parsed update = parse(incoming);
+        if (update == null || update.unit.getTypeDecls().isEmpty()) {
+            update = parseSnippet(incoming);
+            snippet = true;
+        }
+        if (update == null) {
+            logger.info("New content does not parse; deferring to CodeMergeAgent.");
+            return null;
+        }
+        ClassTree source = snippet ? firstType(update) : findType(update, target.getSimpleName().toString());
+        if (source == null || update.unit.getTypeDecls().size() > 1) {
+            logger.info("New content does not map onto {}; deferring to CodeMergeAgent.", target.getSimpleName());
+            return null;
+        }
+
+        Map<String, Tree> baseMembers = null;
+        if (base != null) {
+            Parsed committed = parse(base);
+            ClassTree baseType = committed != null ? findType(committed, target.getSimpleName().toString()) : null;
+            baseMembers = baseType != null ? members(baseType) : new LinkedHashMap<>();
+        }
+
+        List<Edit> edits = new ArrayList<>();
+        if (!snippet && !mergeTypeHeader(current, target, update, source, edits)) {
+            logger.info("Class header of {} changed (extends/implements); deferring to CodeMergeAgent.", target.getSimpleName());
+            return null;
+        }
+        mergeImports(current, update, edits);
+
+        Map<String, Tree> existingMembers = members(target);
+        String memberIndent = memberIndent(current, target);
+        StringBuilder appended = new StringBuilder();
+        int previousEnd = bodyStart(update, source);
+        for (Tree member : source.getMembers()) {
+            int memberStart = update.start(member);
+            if (memberStart < 0) {
+                continue; // Synthetic members such as the implicit default constructor.
+            }
+            String key = key(member);
+            Tree existingMember = existingMembers.get(key);
+            if (existingMember == null) {
+                // New member: carry its leading comments along with it.
+                String chunk = stripBlankLines(update.source.substring(previousEnd, update.end(member)));
+                appended.append("\n").append(reindent(chunk, memberIndent)).append("\n");
+            } else if (!same(existingMember, member)) {
+                Tree baseMember = baseMembers != null ? baseMembers.get(key) : null;
+                boolean changedOnDisk = baseMembers != null && (baseMember == null || !same(baseMember, existingMember));
+                boolean changedByBlock = baseMember == null || !same(baseMember, member);
+                if (changedOnDisk && changedByBlock) {
+                    logger.info("Member {} of {} changed in both versions; deferring to CodeMergeAgent.", key, target.getSimpleName());
+                    return null;
+                }
+                if (changedByBlock) {
+                    String replacement = reindentContinuation(update.text(member), column(update, member), memberIndent);
+                    edits.add(new Edit(current.start(existingMember), current.end(existingMember), replacement));
+                }
+            }
+            previousEnd = update.end(member);
+        }
+        if (appended.length() > 0) {
+            int closingBrace = current.end(target) - 1;
+            edits.add(new Edit(closingBrace, closingBrace, appended.toString()));
+        }
+
+        String merged = apply(existing, edits);
+        Parsed check = parse(merged);
+        if (check == null || findType(check, target.getSimpleName().toString()) == null
+                || !members(findType(check, target.getSimpleName().toString())).keySet().containsAll(existingMembers.keySet())) {
+            logger.warn("Deterministic merge of {} did not produce a valid file; deferring to CodeMergeAgent.", target.getSimpleName());
+            return null;
+        }
+        logger.info("✅ Merged {} deterministically ({} edits).", target.getSimpleName(), edits.size());
+        return merged;
+    }
+
+    private static boolean mergeTypeHeader(Parsed current, ClassTree target, Parsed update, ClassTree source, List<Edit> edits) {
+        String targetExtends = target.getExtendsClause() == null ? "" : target.getExtendsClause().toString();
+        String sourceExtends = source.getExtendsClause() == null ? "" : source.getExtendsClause().toString();
+        Set<String> targetImplements = target.getImplementsClause().stream().map(Object::toString).collect(Collectors.toSet());
+        boolean implementsCovered = source.getImplementsClause().stream().map(Object::toString).allMatch(targetImplements::contains);
+        if ((!sourceExtends.isEmpty() && !sourceExtends.equals(targetExtends)) || !implementsCovered) {
+            return false;
+        }
+        Set<String> existingAnnotations = target.getModifiers().getAnnotations().stream().map(Object::toString).collect(Collectors.toSet());
+        StringBuilder newAnnotations = new StringBuilder();
+        String indent = " ".repeat(Math.max(0, column(current, target)));
+        for (Tree annotation : source.getModifiers().getAnnotations()) {
+            if (!existingAnnotations.contains(annotation.toString())) {
+                newAnnotations.append(update.text(annotation)).append("\n").append(indent);
+            }
+        }
+        if (newAnnotations.length() > 0) {
+            int at = current.start(target);
+            edits.add(new Edit(at, at, newAnnotations.toString()));
+        }
+        return true;
+    }
+
+    private static void mergeImports(Parsed current, Parsed update, List<Edit> edits) {
+        Set<String> existingImports = current.unit.getImports().stream().map(JavaSourceMerger::importKey).collect(Collectors.toSet());
+        Set<String> newImports = new LinkedHashSet<>();
+        for (ImportTree imp : update.unit.getImports()) {
+            if (!existingImports.contains(importKey(imp))) {
+                newImports.add("import " + (imp.isStatic() ? "static " : "") + imp.getQualifiedIdentifier() + ";");
+            }
+        }
+        if (newImports.isEmpty()) {
+            return;
+        }
+        List<? extends ImportTree> imports = current.unit.getImports();
+        int at;
+        String text;
+        if (!imports.isEmpty()) {
+            at = current.end(imports.get(imports.size() - 1));
+            text = "\n" + String.join("\n", newImports);
+        } else if (current.unit.getPackage() != null) {
+            at = current.source.indexOf(';', current.start(current.unit.getPackage())) + 1;
+            text = "\n\n" + String.join("\n", newImports);
+        } else {
+            at = 0;
+            text = String.join("\n", newImports) + "\n\n";
+        }
+        edits.add(new Edit(at, at, text));
+    }
+
+    private static String importKey(ImportTree imp) {
+        return (imp.isStatic() ? "static " : "") + imp.getQualifiedIdentifier();
+    }
+
+    private static Map<String, Tree> members(ClassTree type) {
+        Map<String, Tree> members = new LinkedHashMap<>();
+        for (Tree member : type.getMembers()) {
+            members.putIfAbsent(key(member), member);
+        }
+        return members;
+    }
+
+    private static String key(Tree member) {
+        if (member instanceof MethodTree) {
+            MethodTree method = (MethodTree) member;
+            String params = method.getParameters().stream()
+                    .map(p -> p.getType().toString().replaceAll("<.*>", "").replace("...", "[]"))
+                    .collect(Collectors.joining(","));
+            return "method:" + method.getName() + "(" + params + ")";
+        } else if (member instanceof VariableTree) {
+            return "field:" + ((VariableTree) member).getName();
+        } else if (member instanceof ClassTree) {
+            return "type:" + ((ClassTree) member).getSimpleName();
+        }
+        return member.getKind() + ":" + member;
+    }
+
+    /**
+     * Compares two members by their canonical pretty-printed form, ignoring formatting and comments.
+     */
+    private static boolean same(Tree a, Tree b) {
+        return a.toString().equals(b.toString());
+    }
+
+    private static ClassTree primaryType(Parsed parsed) {
+        List<ClassTree> types = types(parsed);
+        return types.size() == 1 ? types.get(0) : null;
+    }
+
+    private static ClassTree firstType(Parsed parsed) {
+        List<ClassTree> types = types(parsed);
+        return types.isEmpty() ? null : types.get(0);
+    }
+
+    private static ClassTree findType(Parsed parsed, String simpleName) {
+        return types(parsed).stream().filter(t -> t.getSimpleName().contentEquals(simpleName)).findFirst().orElse(null);
+    }
+
+    private static List<ClassTree> types(Parsed parsed) {
+        return parsed.unit.getTypeDecls().stream()
+                .filter(ClassTree.class::isInstance)
+                .map(ClassTree.class::cast)
+                .collect(Collectors.toList());
+    }
+
+    private static int bodyStart(Parsed parsed, ClassTree type) {
+        return parsed.source.indexOf('{', parsed.start(type)) + 1;
+    }
+
+    private static int column(Parsed parsed, Tree tree) {
+        int start = parsed.start(tree);
+        return start - (parsed.source.lastIndexOf('\n', start - 1) + 1);
+    }
+
+    private static String memberIndent(Parsed parsed, ClassTree type) {
+        for (Tree member : type.getMembers()) {
+            if (parsed.start(member) >= 0) {
+                return " ".repeat(column(parsed, member));
+            }
+        }
+        return " ".repeat(Math.max(0, column(parsed, type))) + DEFAULT_MEMBER_INDENT;
+    }
+
+    private static String stripBlankLines(String chunk) {
+        return chunk.replaceAll("^(\\s*\\n)+", "").replaceAll("\\s+$", "");
+    }
+
+    /**
+     * Re-indents every line of {@code chunk} so its least indented line starts at {@code indent}.
+     */
+    private static String reindent(String chunk, String indent) {
+        String[] lines = chunk.split("\n", -1);
+        int min = Integer.MAX_VALUE;
+        for (String line : lines) {
+            if (!line.isBlank()) {
+                min = Math.min(min, line.length() - line.stripLeading().length());
+            }
+        }
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            out.append(line.isBlank() ? "" : indent + line.substring(Math.min(min, line.length())));
+            if (i < lines.length - 1) {
+                out.append("\n");
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Re-indents all but the first line of a member that is spliced in at an existing member's position.
+     */
+    private static String reindentContinuation(String text, int fromColumn, String indent) {
+        String[] lines = text.split("\n", -1);
+        StringBuilder out = new StringBuilder(lines[0]);
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            int leading = line.length() - line.stripLeading().length();
+            out.append("\n").append(line.isBlank() ? "" : indent + line.substring(Math.min(leading, fromColumn)));
+        }
+        return out.toString();
+    }
+
+    private static String apply(String source, List<Edit> edits) {
+        List<Edit> ordered = new ArrayList<>(edits);
+        ordered.sort(Comparator.comparingInt((Edit e) -> e.start).reversed());
+        StringBuilder result = new StringBuilder(source);
+        for (Edit edit : ordered) {
+            result.replace(edit.start, edit.end, edit.replacement);
+        }
+        return result.toString();
+    }
+
+    private static Parsed parseSnippet(String snippet) {
+        StringBuilder imports = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        boolean inHeader = true;
+        for (String line : snippet.split("\n", -1)) {
+            String trimmed = line.trim();
+            if (inHeader && (trimmed.startsWith("import ") || trimmed.startsWith("package ") || trimmed.isEmpty())) {
+                if (trimmed.startsWith("import ")) {
+                    imports.append(trimmed).append("\n");
+                }
+                continue;
+            }
+            inHeader = false;
+            body.append(line).append("\n");
+        }
+        return parse(imports + "class " + SNIPPET_CLASS + " {\n" + body + "}\n");
+    }
+
+    private static Parsed parse(String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return null; // Running on a JRE without the compiler module.
+        }
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Merge.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try {
+            JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostics, List.of("-proc:none"), null, List.of(file));
+            Iterable<? extends CompilationUnitTree> units = task.parse();
+            boolean hasErrors = diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR);
+            CompilationUnitTree unit = units.iterator().hasNext() ? units.iterator().next() : null;
+            if (hasErrors || unit == null) {
+                return null;
+            }
+            return new Parsed(source, unit, Trees.instance(task).getSourcePositions());
+        } catch (Exception e) {
+            logger.warn("⚠️ Could not parse Java source for merging: {}", e.getMessage());
+            return null;
+        }
+    }
+}
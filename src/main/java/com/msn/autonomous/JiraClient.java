@@ -0,0 +1,169 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Consumer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Reads issues from the Jira REST API (v2), on Jira Cloud as well as Jira Server and Data Center.
+ * <p>
+ * All instances share one {@link HttpClient}, so repeated requests (several issues in one process, or the service
+ * mode) reuse its pooled, HTTP/2 where available, connections instead of a new TLS handshake per issue. Only the
+ * fields the workflow uses are requested, for single issues and for JQL searches alike.
+ */
+final class JiraClient {
+
+    static final String ISSUE_FIELDS = "summary,description,updated";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final String authorization;
+
+    JiraClient(String baseUrl, String username, String apiToken) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        String credentials = username + ":" + apiToken;
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The fields of an issue the workflow reads.
+     */
+    static final class Issue {
+        final String key;
+        final String summary;
+        final String description;
+        // Jira's last-modified timestamp, exactly as the server formats it.
+        final String updated;
+
+        Issue(String key, String summary, String description, String updated) {
+            this.key = key;
+            this.summary = summary;
+            this.description = description;
+            this.updated = updated;
+        }
+
+        /**
+         * The issue as the SRS text the agents read, with Jira markup reduced to plain text.
+         */
+        String srsContent() {
+            return JiraMarkup.toPlainText("Feature: " + summary + "\n\n" + description);
+        }
+    }
+
+    Issue fetchIssue(String issueKey) throws IOException, InterruptedException {
+        String query = "?fields=" + encode(ISSUE_FIELDS);
+        HttpResponse<String> response = get("/rest/api/2/issue/" + encode(issueKey) + query);
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to fetch Jira issue. Status code: " + response.statusCode() + " - " + response.body());
+        }
+        try {
+            return toIssue(new JSONObject(response.body()));
+        } catch (JSONException e) {
+            throw new IOException("Unexpected Jira response for " + issueKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs a JQL search and hands each issue to {@code onIssue} as soon as its page arrives, so the caller can start
+     * on the first issues while later pages are still being fetched.
+     * <p>
+     * Jira Cloud only serves JQL searches from the token-paged {@code /search/jql} endpoint; the offset-paged
+     * {@code /search} it replaced is used only when the site does not have it (Jira Server and Data Center). Both are
+     * the v2 API, whose descriptions are wiki markup like {@link #fetchIssue}'s (v3 returns document JSON).
+     *
+     * @return the number of issues delivered.
+     */
+    int search(String jql, int pageSize, Consumer<Issue> onIssue) throws IOException, InterruptedException {
+        String query = "?jql=" + encode(jql) + "&fields=" + encode(ISSUE_FIELDS) + "&maxResults=" + pageSize;
+        int delivered = 0;
+        String nextPageToken = null;
+        while (true) {
+            String pageQuery = nextPageToken == null ? query : query + "&nextPageToken=" + encode(nextPageToken);
+            HttpResponse<String> response = get("/rest/api/2/search/jql" + pageQuery);
+            if (delivered == 0 && nextPageToken == null && (response.statusCode() == 404 || response.statusCode() == 405)) {
+                return searchByOffset(query, onIssue);
+            }
+            JSONObject page = searchPage(response);
+            int count = deliver(page, onIssue);
+            delivered += count;
+            nextPageToken = page.optString("nextPageToken", "");
+            if (count == 0 || page.optBoolean("isLast", false) || nextPageToken.isEmpty()) {
+                return delivered;
+            }
+        }
+    }
+
+    private int searchByOffset(String query, Consumer<Issue> onIssue) throws IOException, InterruptedException {
+        int startAt = 0;
+        while (true) {
+            JSONObject page = searchPage(get("/rest/api/2/search" + query + "&startAt=" + startAt));
+            int count = deliver(page, onIssue);
+            // The server may cap maxResults below the requested page size, so paging follows what it returned.
+            startAt += count;
+            if (count == 0 || startAt >= page.optInt("total", 0)) {
+                return startAt;
+            }
+        }
+    }
+
+    private static JSONObject searchPage(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("Jira search failed. Status code: " + response.statusCode() + " - " + response.body());
+        }
+        try {
+            return new JSONObject(response.body());
+        } catch (JSONException e) {
+            throw new IOException("Unexpected Jira search response: " + e.getMessage(), e);
+        }
+    }
+
+    private static int deliver(JSONObject page, Consumer<Issue> onIssue) throws IOException {
+        try {
+            JSONArray issues = page.getJSONArray("issues");
+            for (int i = 0; i < issues.length(); i++) {
+                onIssue.accept(toIssue(issues.getJSONObject(i)));
+            }
+            return issues.length();
+        } catch (JSONException e) {
+            throw new IOException("Unexpected Jira search response: " + e.getMessage(), e);
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", authorization)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Percent-encodes a query or path value. Spaces become {@code %20} rather than the form encoding's {@code +}.
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static Issue toIssue(JSONObject issueJson) {
+        JSONObject fields = issueJson.getJSONObject("fields");
+        return new Issue(issueJson.getString("key"), fields.getString("summary"), fields.optString("description", ""),
+                fields.optString("updated", ""));
+    }
+}
@@ -0,0 +1,83 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the {@code updated} timestamp of every issue version the workflow has finished processing.
+ * <p>
+ * An issue that has not been edited since is skipped before any model call. The cache lives in
+ * {@code ADK_ISSUE_CACHE} (default {@code ../temp/.issue-cache}), one file per Jira site and issue key; deleting an
+ * issue's file makes the next run process it again.
+ */
+final class JiraIssueCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JiraIssueCache.class);
+
+    static final String ENV_ISSUE_CACHE = "ADK_ISSUE_CACHE";
+
+    private final Path directory;
+
+    JiraIssueCache(Path directory) {
+        this.directory = directory;
+    }
+
+    static JiraIssueCache inDefaultLocation() {
+        String configured = System.getenv(ENV_ISSUE_CACHE);
+        if (configured != null && !configured.isBlank()) {
+            return new JiraIssueCache(Paths.get(configured.trim()));
+        }
+        Path parent = Paths.get("").toAbsolutePath().getParent();
+        return new JiraIssueCache((parent != null ? parent : Paths.get("").toAbsolutePath()).resolve("temp").resolve(".issue-cache"));
+    }
+
+    /**
+     * Whether this version of the issue was already processed.
+     */
+    boolean isUnchanged(String jiraUrl, JiraClient.Issue issue) {
+        if (issue.updated.isEmpty()) {
+            return false;
+        }
+        Path entry = entry(jiraUrl, issue.key);
+        try {
+            return Files.exists(entry) && issue.updated.equals(Files.readString(entry, StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not read issue cache: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Records that this version of the issue was processed.
+     */
+    void record(String jiraUrl, JiraClient.Issue issue) {
+        if (issue.updated.isEmpty()) {
+            return;
+        }
+        Path entry = entry(jiraUrl, issue.key);
+        try {
+            Files.createDirectories(entry.getParent());
+            Path tmp = Files.createTempFile(entry.getParent(), issue.key, ".tmp");
+            Files.writeString(tmp, issue.updated, StandardCharsets.UTF_8);
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not record issue {} in the cache: {}", issue.key, e.getMessage());
+        }
+    }
+
+    /**
+     * The cache file for an issue, in a directory per Jira site so equal keys on different sites never collide.
+     */
+    Path entry(String jiraUrl, String issueKey) {
+        String authority = URI.create(jiraUrl.trim()).getAuthority();
+        String site = (authority != null ? authority : jiraUrl).replaceAll("[^A-Za-z0-9._-]", "_");
+        return directory.resolve(site).resolve(issueKey.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+}
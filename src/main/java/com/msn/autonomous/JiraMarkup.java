@@ -0,0 +1,137 @@
+package com.msn.autonomous;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts Jira wiki markup to compact plain text before it reaches any prompt.
+ * <p>
+ * Links become their target ({@code [text|url]} becomes {@code text (url)}, or just the URL when the text repeats
+ * it), so keys like {@code GitHub-URL} carry a clean value. Headings, emphasis, panels, colors and quotes keep only
+ * their text; images, attachments and horizontal rules are dropped; lists become {@code -} items indented by depth;
+ * tables become {@code |}-separated rows. {@code {code}} and {@code {noformat}} blocks are kept verbatim. Runs of
+ * spaces and blank lines are collapsed.
+ */
+final class JiraMarkup {
+
+    private static final Pattern VERBATIM_START = Pattern.compile("^\\s*\\{(code|noformat)(:[^}]*)?}\\s*(.*)$");
+    private static final Pattern HEADING = Pattern.compile("^h[1-6]\\.\\s*");
+    private static final Pattern BLOCK_QUOTE = Pattern.compile("^bq\\.\\s*");
+    private static final Pattern LIST_ITEM = Pattern.compile("^([*#-]+)\\s+(.*)$");
+    private static final Pattern HORIZONTAL_RULE = Pattern.compile("^-{4,}$");
+    private static final Pattern TABLE_ROW = Pattern.compile("^\\|\\|?(.*?)\\|*$");
+    private static final Pattern BLOCK_MACRO = Pattern.compile("\\{(panel|quote|color|info|note|warning|tip|expand|section|column)(:[^}]*)?}");
+    private static final Pattern IMAGE = Pattern.compile("!(?=[^\\s!])[^!\\n]*\\.(?:png|jpe?g|gif|svg|bmp|webp)(\\|[^!]*)?!", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTACHMENT = Pattern.compile("\\[\\^[^\\]]*]");
+    private static final Pattern MENTION = Pattern.compile("\\[~(?:accountid:)?([^\\]]+)]");
+    private static final Pattern LINK = Pattern.compile("\\[([^|\\]]*)\\|([^|\\]]+)(\\|[^\\]]*)?]");
+    private static final Pattern BARE_LINK = Pattern.compile("\\[((?:https?|ftp|mailto|file):[^\\]]+)]");
+    private static final Pattern MONOSPACE = Pattern.compile("\\{\\{(.*?)}}");
+    private static final Pattern CITATION = Pattern.compile("\\?\\?(.+?)\\?\\?");
+    private static final Pattern EMPHASIS = Pattern.compile("(?<![\\w*_+])([*_+])(\\S(?:.*?\\S)?)\\1(?![\\w*_+])");
+    private static final Pattern SPACES = Pattern.compile("[ \\t\\u00a0]+");
+
+    private JiraMarkup() {
+    }
+
+    static String toPlainText(String markup) {
+        if (markup == null || markup.isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        String closingTag = null;
+        boolean lastWasBlank = true;
+        for (String line : markup.split("\\R", -1)) {
+            if (closingTag != null) {
+                int end = line.indexOf(closingTag);
+                if (end < 0) {
+                    text.append(line).append('\n');
+                    continue;
+                }
+                if (!line.substring(0, end).isBlank()) {
+                    text.append(line, 0, end).append('\n');
+                }
+                line = line.substring(end + closingTag.length());
+                closingTag = null;
+                if (line.isBlank()) {
+                    continue;
+                }
+            }
+            Matcher verbatim = VERBATIM_START.matcher(line);
+            if (verbatim.matches()) {
+                closingTag = "{" + verbatim.group(1) + "}";
+                String rest = verbatim.group(3);
+                int end = rest.indexOf(closingTag);
+                if (end >= 0) {
+                    // A one-line block: {code}x = 1{code}
+                    text.append(rest, 0, end).append('\n');
+                    closingTag = null;
+                } else if (!rest.isBlank()) {
+                    text.append(rest).append('\n');
+                }
+                lastWasBlank = false;
+                continue;
+            }
+            String converted = convertLine(line);
+            if (converted.isEmpty()) {
+                // Blank lines and rules separate paragraphs; a line that held only markup (a macro tag, an image)
+                // leaves nothing behind.
+                boolean paragraphBreak = line.isBlank() || HORIZONTAL_RULE.matcher(line.strip()).matches();
+                if (paragraphBreak && !lastWasBlank) {
+                    text.append('\n');
+                    lastWasBlank = true;
+                }
+            } else {
+                text.append(converted).append('\n');
+                lastWasBlank = false;
+            }
+        }
+        return text.toString().strip();
+    }
+
+    private static String convertLine(String line) {
+        String text = line.strip();
+        if (HORIZONTAL_RULE.matcher(text).matches()) {
+            return "";
+        }
+        text = HEADING.matcher(text).replaceFirst("");
+        text = BLOCK_QUOTE.matcher(text).replaceFirst("");
+        // Links go first: their pipes would otherwise split table cells.
+        text = BLOCK_MACRO.matcher(text).replaceAll(" ");
+        text = IMAGE.matcher(text).replaceAll("");
+        text = ATTACHMENT.matcher(text).replaceAll("");
+        text = MENTION.matcher(text).replaceAll("@$1");
+        text = replaceLinks(text);
+        text = BARE_LINK.matcher(text).replaceAll("$1");
+        String prefix = "";
+        Matcher item = LIST_ITEM.matcher(text);
+        if (item.matches()) {
+            prefix = "  ".repeat(item.group(1).length() - 1) + "- ";
+            text = item.group(2);
+        } else if (text.startsWith("|")) {
+            Matcher row = TABLE_ROW.matcher(text);
+            if (row.matches()) {
+                text = String.join(" | ", row.group(1).split("\\|\\|?", -1));
+            }
+        }
+        text = MONOSPACE.matcher(text).replaceAll("$1");
+        text = CITATION.matcher(text).replaceAll("$1");
+        text = EMPHASIS.matcher(text).replaceAll("$2");
+        text = text.replace("\\\\", " ");
+        text = SPACES.matcher(text).replaceAll(" ").strip();
+        return text.isEmpty() ? "" : prefix + text;
+    }
+
+    private static String replaceLinks(String text) {
+        Matcher link = LINK.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (link.find()) {
+            String label = link.group(1).strip();
+            String target = link.group(2).strip();
+            String replacement = label.isEmpty() || label.equals(target) ? target : label + " (" + target + ")";
+            link.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        link.appendTail(result);
+        return result.toString();
+    }
+}
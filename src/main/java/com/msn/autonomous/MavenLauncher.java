@@ -0,0 +1,305 @@
+package com.msn.autonomous;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides how Maven is launched for the generated projects.
+ * <p>
+ * When the Maven Daemon ({@code mvnd}) is installed it is preferred over a fresh {@code mvn} JVM,
+ * so successive builds of the same project reuse a warm JVM with plugins already loaded and JIT-compiled.
+ * The behaviour is controlled by the {@code ADK_BUILD_DAEMON} environment variable:
+ * <ul>
+ *     <li>unset or {@code auto} - use {@code mvnd} if it can be found on the PATH or under {@code MVND_HOME}, otherwise {@code mvn}</li>
+ *     <li>{@code off} / {@code false} - always fork a plain {@code mvn} JVM</li>
+ *     <li>any other value - treated as the path to the {@code mvnd} executable</li>
+ * </ul>
+ * <p>
+ * All builds share one dedicated local repository ({@code ADK_MAVEN_REPO}, default {@code ../temp/.m2/repository})
+ * guarded by the resolver's file locks, so concurrent runs can use it safely. Once a pom has resolved
+ * successfully its fingerprint is recorded and later builds of the same pom run in offline mode.
+ */
+final class MavenLauncher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MavenLauncher.class);
+
+    static final String ENV_BUILD_DAEMON = "ADK_BUILD_DAEMON";
+    static final String ENV_MAVEN_REPO = "ADK_MAVEN_REPO";
+    private static final String ENV_MVND_HOME = "MVND_HOME";
+    private static final String RESOLVED_MARKER_DIR = ".adk-resolved";
+
+    private static String resolvedExecutable;
+    private static boolean daemon;
+    private static Path localRepository;
+
+    private static final Map<String, CompletableFuture<Void>> bomSeeds = new ConcurrentHashMap<>();
+
+    private MavenLauncher() {
+    }
+
+    /**
+     * Returns the Maven executable to use, resolving (and caching) the daemon on first use.
+     */
+    static synchronized String executable() {
+        if (resolvedExecutable == null) {
+            String mvnd = findDaemonExecutable(System.getenv(ENV_BUILD_DAEMON));
+            if (mvnd != null) {
+                resolvedExecutable = mvnd;
+                daemon = true;
+                logger.info("⚡ Using Maven Daemon for builds: {}", mvnd);
+            } else {
+                resolvedExecutable = isWindows() ? "mvn.cmd" : "mvn";
+                daemon = false;
+            }
+        }
+        return resolvedExecutable;
+    }
+
+    /**
+     * Whether builds go through a persistent Maven Daemon.
+     */
+    static synchronized boolean isDaemon() {
+        executable();
+        return daemon;
+    }
+
+    /**
+     * Returns the shared local repository used by every generated project, creating it if needed.
+     */
+    static synchronized Path localRepository() {
+        if (localRepository == null) {
+            String configured = System.getenv(ENV_MAVEN_REPO);
+            Path repo;
+            if (configured != null && !configured.isBlank()) {
+                repo = Paths.get(configured.trim());
+            } else {
+                Path parent = Paths.get("").toAbsolutePath().getParent();
+                repo = (parent != null ? parent : Paths.get("").toAbsolutePath()).resolve("temp").resolve(".m2").resolve("repository");
+            }
+            try {
+                Files.createDirectories(repo);
+            } catch (IOException e) {
+                logger.warn("⚠️ Could not create shared Maven repository at {}: {}", repo, e.getMessage());
+            }
+            localRepository = repo.toAbsolutePath();
+            logger.info("Using shared Maven repository: {}", localRepository);
+        }
+        return localRepository;
+    }
+
+    /**
+     * Builds the full command line for the given Maven goals in {@code projectDir}.
+     * <p>
+     * A warm daemon keeps the compiled state of the previous build, so {@code clean} is dropped and the
+     * compiler plugin's stale-source detection decides what has to be recompiled. When the project's pom
+     * has already been resolved into the shared repository, Maven runs offline.
+     */
+    static String[] command(File projectDir, String... goals) {
+        List<String> command = new ArrayList<>();
+        command.add(executable());
+        command.addAll(repositoryArguments());
+        if (isResolved(projectDir)) {
+            command.add("--offline");
+        }
+        for (String goal : goals) {
+            if (isDaemon() && "clean".equals(goal)) {
+                continue;
+            }
+            command.add(goal);
+        }
+        return command.toArray(new String[0]);
+    }
+
+    /**
+     * Whether a command produced by {@link #command} runs in offline mode.
+     */
+    static boolean isOffline(String[] command) {
+        return Arrays.asList(command).contains("--offline");
+    }
+
+    /**
+     * Detects a build that failed only because an artifact was missing from the shared repository while offline.
+     */
+    static boolean isOfflineResolutionFailure(String buildLog) {
+        return buildLog != null && (buildLog.contains("in offline mode") || buildLog.contains("has not been downloaded from it before"));
+    }
+
+    /**
+     * Records that every dependency and plugin of the project's current pom is present in the shared repository.
+     */
+    static void markResolved(File projectDir) {
+        Path marker = resolvedMarker(projectDir);
+        if (marker == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(marker.getParent());
+            if (!Files.exists(marker)) {
+                Files.writeString(marker, projectDir.getAbsolutePath(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not record resolved pom fingerprint: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forgets the resolved state of the project's pom so the next build resolves online again.
+     */
+    static void forgetResolved(File projectDir) {
+        Path marker = resolvedMarker(projectDir);
+        if (marker == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(marker);
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not remove resolved pom fingerprint: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts pre-seeding the shared repository with the Spring Boot parent and BOM for the given version
+     * in the background. Does nothing if the BOM is already present or being fetched.
+     */
+    static void seedSpringBootBomAsync(String springBootVersion) {
+        if (springBootVersion == null || springBootVersion.isBlank() || isBomPresent(springBootVersion)) {
+            return;
+        }
+        bomSeeds.computeIfAbsent(springBootVersion, version -> CompletableFuture.runAsync(() -> seedSpringBootBom(version)));
+    }
+
+    /**
+     * Waits for any background BOM seeding to finish so a build does not race it for the same artifacts.
+     */
+    static void awaitSeeding() {
+        for (CompletableFuture<Void> seed : bomSeeds.values()) {
+            try {
+                seed.join();
+            } catch (Exception e) {
+                logger.warn("⚠️ Spring Boot BOM seeding did not complete: {}", e.getMessage());
+            }
+        }
+    }
+
+    static boolean isBomPresent(String springBootVersion) {
+        return Files.exists(bomPath(springBootVersion));
+    }
+
+    static Path bomPath(String springBootVersion) {
+        return localRepository().resolve(Paths.get("org", "springframework", "boot", "spring-boot-dependencies",
+                springBootVersion, "spring-boot-dependencies-" + springBootVersion + ".pom"));
+    }
+
+    private static void seedSpringBootBom(String springBootVersion) {
+        logger.info("Seeding shared Maven repository with Spring Boot {} BOM...", springBootVersion);
+        List<String> command = new ArrayList<>();
+        command.add(executable());
+        command.add("-B");
+        command.add("-q");
+        command.addAll(repositoryArguments());
+        command.add("dependency:get");
+        command.add("-Dartifact=org.springframework.boot:spring-boot-starter-parent:" + springBootVersion + ":pom");
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(localRepository().toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            int exitCode = process.waitFor();
+            if (exitCode == 0 && isBomPresent(springBootVersion)) {
+                logger.info("✅ Spring Boot {} BOM is available in the shared Maven repository.", springBootVersion);
+            } else {
+                logger.warn("⚠️ Seeding Spring Boot {} BOM failed with exit code {}. Builds will resolve it on demand.", springBootVersion, exitCode);
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not seed Spring Boot {} BOM: {}", springBootVersion, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<String> repositoryArguments() {
+        return List.of(
+                "-Dmaven.repo.local=" + localRepository(),
+                // Named file locks make the shared repository safe for concurrent Maven processes.
+                "-Daether.syncContext.named.factory=file-lock",
+                "-Daether.syncContext.named.nameMapper=file-gav");
+    }
+
+    private static boolean isResolved(File projectDir) {
+        Path marker = resolvedMarker(projectDir);
+        return marker != null && Files.exists(marker);
+    }
+
+    private static Path resolvedMarker(File projectDir) {
+        Path pom = projectDir.toPath().resolve("pom.xml");
+        if (!Files.exists(pom)) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String fingerprint = HexFormat.of().formatHex(digest.digest(Files.readAllBytes(pom)));
+            return localRepository().resolve(RESOLVED_MARKER_DIR).resolve(fingerprint);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            logger.warn("⚠️ Could not fingerprint {}: {}", pom, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String findDaemonExecutable(String setting) {
+        if (setting != null && (setting.equalsIgnoreCase("off") || setting.equalsIgnoreCase("false"))) {
+            return null;
+        }
+        if (setting != null && !setting.isBlank() && !setting.equalsIgnoreCase("auto")) {
+            Path explicit = Paths.get(setting.trim());
+            if (Files.isExecutable(explicit)) {
+                return explicit.toString();
+            }
+            logger.warn("⚠️ {} points to '{}', which is not an executable. Falling back to mvn.", ENV_BUILD_DAEMON, setting);
+            return null;
+        }
+
+        List<String> candidates = isWindows() ? Arrays.asList("mvnd.cmd", "mvnd.exe") : List.of("mvnd");
+        List<Path> searchDirs = new ArrayList<>();
+        String mvndHome = System.getenv(ENV_MVND_HOME);
+        if (mvndHome != null && !mvndHome.isBlank()) {
+            searchDirs.add(Paths.get(mvndHome, "bin"));
+        }
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String dir : path.split(File.pathSeparator)) {
+                if (!dir.isBlank()) {
+                    searchDirs.add(Paths.get(dir));
+                }
+            }
+        }
+        for (Path dir : searchDirs) {
+            for (String candidate : candidates) {
+                Path executable = dir.resolve(candidate);
+                if (Files.isRegularFile(executable) && Files.isExecutable(executable)) {
+                    return executable.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().startsWith("windows");
+    }
+}
@@ -0,0 +1,603 @@
+package com.msn.autonomous;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The parts of a pom.xml the workflow manages: the project's direct dependencies, the Spring Boot parent version and
+ * properties.
+ * <p>
+ * The pom is read once with StAX, and the source offsets of everything the model may change are kept. {@link #write()}
+ * splices only the edits into the original text, so plugins, repositories, comments and formatting survive, and a pom
+ * that needs no change is byte-for-byte identical. Dependencies are keyed by {@code groupId:artifactId}; dependencies
+ * under {@code <dependencyManagement>} or plugins are not project dependencies. Dependency management is read (but
+ * never written) so BOMs can be indexed with the same parser.
+ */
+final class PomModel {
+
+    private static final String DEPENDENCIES_PATH = "project/dependencies";
+    private static final String DEPENDENCY_PATH = DEPENDENCIES_PATH + "/dependency";
+    private static final String MANAGED_DEPENDENCY_PATH = "project/dependencyManagement/dependencies/dependency";
+    private static final String PROJECT_VERSION_PATH = "project/version";
+    private static final String PARENT_GROUP_ID_PATH = "project/parent/groupId";
+    private static final String PARENT_ARTIFACT_ID_PATH = "project/parent/artifactId";
+    private static final String PARENT_VERSION_PATH = "project/parent/version";
+    private static final String SPRING_BOOT_PARENT = "org.springframework.boot:spring-boot-starter-parent";
+    private static final String PROPERTIES_PATH = "project/properties";
+    private static final String DEFAULT_INDENT = "    ";
+
+    /**
+     * A dependency, written as the coordinate {@code groupId:artifactId[:version][:scope][:optional]} used by the
+     * DependencyAgent.
+     */
+    static final class Dependency {
+        final String groupId;
+        final String artifactId;
+        final String version;
+        final String scope;
+        final boolean optional;
+
+        Dependency(String groupId, String artifactId, String version, String scope, boolean optional) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.scope = scope;
+            this.optional = optional;
+        }
+
+        /**
+         * Parses a coordinate, or returns null if it has no groupId and artifactId.
+         */
+        static Dependency parse(String coordinate) {
+            String[] parts = coordinate.trim().split(":");
+            if (parts.length < 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                return null;
+            }
+            String version = null;
+            String scope = null;
+            boolean optional = false;
+            for (int i = 2; i < parts.length; i++) {
+                String part = parts[i].trim();
+                if ("optional".equalsIgnoreCase(part)) {
+                    optional = true;
+                } else if (part.matches("compile|runtime|test|provided|system|import")) {
+                    scope = part;
+                } else if (i == 2 && !part.isEmpty()) {
+                    version = part;
+                }
+            }
+            return new Dependency(parts[0].trim(), parts[1].trim(), version, scope, optional);
+        }
+
+        String key() {
+            return groupId + ":" + artifactId;
+        }
+
+        /**
+         * The scope as written to the pom: null for the default {@code compile}.
+         */
+        String declaredScope() {
+            return scope == null || scope.equalsIgnoreCase("compile") ? null : scope;
+        }
+
+        boolean sameDeclaration(Dependency other) {
+            return key().equals(other.key()) && Objects.equals(version, other.version)
+                    && Objects.equals(declaredScope(), other.declaredScope()) && optional == other.optional;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder coordinate = new StringBuilder(key());
+            if (version != null) {
+                coordinate.append(':').append(version);
+            }
+            if (scope != null && !scope.equalsIgnoreCase("compile")) {
+                coordinate.append(':').append(scope);
+            }
+            if (optional) {
+                coordinate.append(":optional");
+            }
+            return coordinate.toString();
+        }
+    }
+
+    /**
+     * Where an element's text content sits in the source.
+     */
+    private static final class Region {
+        final int start;
+        final int end;
+
+        Region(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * A child element of a declared dependency: the whole element, and its text content (null if self-closing).
+     */
+    private static final class Field {
+        final Region element;
+        final Region content;
+
+        Field(Region element, Region content) {
+            this.element = element;
+            this.content = content;
+        }
+    }
+
+    /**
+     * A replacement of {@code [start, end)} in the source.
+     */
+    private static final class Edit {
+        final int start;
+        final int end;
+        final String text;
+
+        Edit(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+
+    private final String source;
+    private final Map<String, Dependency> dependencies = new LinkedHashMap<>();
+    private final List<Dependency> managedDependencies = new ArrayList<>();
+    // The dependencies as the source declares them, with the elements an update may rewrite.
+    private final Map<String, Dependency> declared = new HashMap<>();
+    private final Map<String, Map<String, Field>> dependencyFields = new HashMap<>();
+    private final Map<String, Region> textRegions = new HashMap<>();
+    private final Map<String, String> texts = new LinkedHashMap<>();
+    private final List<Dependency> added = new ArrayList<>();
+    private final Set<String> updated = new LinkedHashSet<>();
+    private final Map<String, String> updatedTexts = new LinkedHashMap<>();
+    private int dependenciesClose = -1;
+    private Region dependenciesTag;
+    private int projectClose = -1;
+    private String childIndent;
+
+    private PomModel(String source) {
+        this.source = source;
+    }
+
+    static PomModel parse(String xml) throws XMLStreamException {
+        PomModel model = new PomModel(xml);
+        model.read();
+        return model;
+    }
+
+    /**
+     * The project's direct dependencies, including those added to this model, in pom order.
+     */
+    Collection<Dependency> dependencies() {
+        return Collections.unmodifiableCollection(dependencies.values());
+    }
+
+    /**
+     * The entries of {@code <dependencyManagement>}, as written (versions are not interpolated). BOM imports have
+     * the scope {@code import}.
+     */
+    List<Dependency> managedDependencies() {
+        return Collections.unmodifiableList(managedDependencies);
+    }
+
+    /**
+     * The project's own version, or null if it inherits it from its parent.
+     */
+    String version() {
+        return texts.get(PROJECT_VERSION_PATH);
+    }
+
+    /**
+     * The properties declared under {@code <properties>}.
+     */
+    Map<String, String> properties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        String prefix = PROPERTIES_PATH + "/";
+        for (Map.Entry<String, String> entry : texts.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                properties.put(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Adds the dependency unless one with the same groupId and artifactId is already declared.
+     *
+     * @return true if the dependency was added.
+     */
+    boolean addIfAbsent(Dependency dependency) {
+        if (dependencies.containsKey(dependency.key())) {
+            return false;
+        }
+        dependencies.put(dependency.key(), dependency);
+        added.add(dependency);
+        return true;
+    }
+
+    /**
+     * Declares the dependency exactly as given. A dependency the pom already declares keeps its element, with the
+     * version, scope and optional flag rewritten to the given ones; no version leaves it to dependency management.
+     */
+    void merge(Dependency dependency) {
+        String key = dependency.key();
+        Dependency existing = dependencies.get(key);
+        if (existing == null || added.contains(existing)) {
+            added.remove(existing);
+            dependencies.put(key, dependency);
+            added.add(dependency);
+            return;
+        }
+        dependencies.put(key, dependency);
+        if (dependency.sameDeclaration(declared.get(key))) {
+            updated.remove(key);
+        } else {
+            updated.add(key);
+        }
+    }
+
+    /**
+     * Declares the dependency with exactly its version, whatever version the pom (or the agent) had for it.
+     */
+    void enforce(Dependency dependency) {
+        Dependency existing = dependencies.get(dependency.key());
+        if (existing == null || added.contains(existing)) {
+            merge(dependency);
+        } else if (dependency.version != null) {
+            merge(new Dependency(existing.groupId, existing.artifactId, dependency.version, existing.scope, existing.optional));
+        }
+    }
+
+    /**
+     * The parent as {@code groupId:artifactId}, or null if the pom has no parent.
+     */
+    String parent() {
+        String groupId = texts.get(PARENT_GROUP_ID_PATH);
+        String artifactId = texts.get(PARENT_ARTIFACT_ID_PATH);
+        return groupId == null || artifactId == null ? null : groupId + ":" + artifactId;
+    }
+
+    /**
+     * Sets the parent version if the parent is {@code spring-boot-starter-parent}. Any other parent (a company
+     * parent, a monorepo aggregator) versions independently of Spring Boot and is left alone.
+     */
+    void setSpringBootParentVersion(String version) {
+        if (SPRING_BOOT_PARENT.equals(parent())) {
+            setText(PARENT_VERSION_PATH, version);
+        }
+    }
+
+    /**
+     * Sets an existing property under {@code <properties>}. Properties the pom does not declare are left alone.
+     */
+    void setProperty(String name, String value) {
+        setText(PROPERTIES_PATH + "/" + name, value);
+    }
+
+    boolean isModified() {
+        return !added.isEmpty() || !updated.isEmpty() || !updatedTexts.isEmpty();
+    }
+
+    /**
+     * Returns the original source with this model's changes spliced in.
+     */
+    String write() {
+        if (!isModified()) {
+            return source;
+        }
+        List<Edit> edits = new ArrayList<>();
+        for (Map.Entry<String, String> update : updatedTexts.entrySet()) {
+            Region region = textRegions.get(update.getKey());
+            edits.add(new Edit(region.start, region.end, escape(update.getValue())));
+        }
+        for (String key : updated) {
+            addFieldEdits(edits, declared.get(key), dependencies.get(key), dependencyFields.get(key));
+        }
+        if (!added.isEmpty()) {
+            edits.add(insertion());
+        }
+        edits.sort((a, b) -> Integer.compare(b.start, a.start));
+        StringBuilder out = new StringBuilder(source);
+        for (Edit edit : edits) {
+            out.replace(edit.start, edit.end, edit.text);
+        }
+        return out.toString();
+    }
+
+    private void setText(String path, String value) {
+        if (value == null || !textRegions.containsKey(path) || value.equals(texts.get(path))) {
+            return;
+        }
+        texts.put(path, value);
+        updatedTexts.put(path, value);
+    }
+
+    /**
+     * Rewrites the version, scope and optional elements of a declared dependency. Elements the new declaration
+     * drops are removed with their line; new ones are inserted after the preceding field, in the usual order.
+     */
+    private void addFieldEdits(List<Edit> edits, Dependency from, Dependency to, Map<String, Field> fields) {
+        String[] names = {"version", "scope", "optional"};
+        String[] before = {from.version, from.declaredScope(), from.optional ? "true" : null};
+        String[] after = {to.version, to.declaredScope(), to.optional ? "true" : null};
+        Map<Integer, StringBuilder> insertions = new LinkedHashMap<>();
+        Field artifactId = fields.get("artifactId");
+        Field anchor = artifactId;
+        for (int i = 0; i < names.length; i++) {
+            Field field = fields.get(names[i]);
+            if (Objects.equals(before[i], after[i])) {
+                anchor = field != null ? field : anchor;
+            } else if (after[i] == null) {
+                if (field != null) {
+                    edits.add(removal(field.element));
+                }
+            } else if (field != null) {
+                String value = escape(after[i]);
+                edits.add(field.content != null
+                        ? new Edit(field.content.start, field.content.end, value)
+                        : new Edit(field.element.start, field.element.end, element(names[i], value)));
+                anchor = field;
+            } else {
+                int lineStart = lineStart(source, artifactId.element.start);
+                String separator = lineStart == 0 || source.charAt(lineStart - 1) == '\n'
+                        ? "\n" + source.substring(lineStart, artifactId.element.start)
+                        : "";
+                insertions.computeIfAbsent(anchor.element.end, at -> new StringBuilder())
+                        .append(separator).append(element(names[i], escape(after[i])));
+            }
+        }
+        insertions.forEach((at, text) -> edits.add(new Edit(at, at, text.toString())));
+    }
+
+    /**
+     * Removes an element, and its whole line if it stands on a line of its own.
+     */
+    private Edit removal(Region element) {
+        int start = lineStart(source, element.start);
+        int end = element.end;
+        boolean ownLine = start == 0 || source.charAt(start - 1) == '\n';
+        int lineEnd = end;
+        while (lineEnd < source.length() && (source.charAt(lineEnd) == ' ' || source.charAt(lineEnd) == '\t' || source.charAt(lineEnd) == '\r')) {
+            lineEnd++;
+        }
+        if (ownLine && lineEnd < source.length() && source.charAt(lineEnd) == '\n') {
+            return new Edit(start, lineEnd + 1, "");
+        }
+        return new Edit(element.start, end, "");
+    }
+
+    private static String element(String name, String escapedValue) {
+        return "<" + name + ">" + escapedValue + "</" + name + ">";
+    }
+
+    private Edit insertion() {
+        if (dependenciesClose >= 0) {
+            // Insert at the start of the closing tag's line so the closing tag keeps its indentation.
+            int lineStart = lineStart(source, dependenciesClose);
+            String closingIndent = source.substring(lineStart, dependenciesClose);
+            String itemIndent = childIndent != null ? childIndent : closingIndent + DEFAULT_INDENT;
+            String unit = indentUnit(closingIndent, itemIndent);
+            StringBuilder block = new StringBuilder();
+            if (lineStart == 0 || source.charAt(lineStart - 1) != '\n') {
+                block.append('\n');
+            }
+            for (Dependency dependency : added) {
+                appendDependency(block, dependency, itemIndent, unit);
+            }
+            if (lineStart == dependenciesClose && lineStart > 0 && source.charAt(lineStart - 1) != '\n') {
+                block.append(closingIndent);
+            }
+            return new Edit(lineStart, lineStart, block.toString());
+        }
+        String unit = DEFAULT_INDENT;
+        StringBuilder block = new StringBuilder("<dependencies>\n");
+        for (Dependency dependency : added) {
+            appendDependency(block, dependency, unit + unit, unit);
+        }
+        block.append(unit).append("</dependencies>");
+        if (dependenciesTag != null) {
+            return new Edit(dependenciesTag.start, dependenciesTag.end, block.toString());
+        }
+        return new Edit(projectClose, projectClose, unit + block + "\n");
+    }
+
+    private static String indentUnit(String outer, String inner) {
+        return inner.length() > outer.length() && inner.startsWith(outer) ? inner.substring(outer.length()) : DEFAULT_INDENT;
+    }
+
+    private static void appendDependency(StringBuilder out, Dependency dependency, String indent, String unit) {
+        String inner = indent + unit;
+        out.append(indent).append("<dependency>\n");
+        out.append(inner).append("<groupId>").append(escape(dependency.groupId)).append("</groupId>\n");
+        out.append(inner).append("<artifactId>").append(escape(dependency.artifactId)).append("</artifactId>\n");
+        if (dependency.version != null) {
+            out.append(inner).append("<version>").append(escape(dependency.version)).append("</version>\n");
+        }
+        if (dependency.scope != null && !dependency.scope.equalsIgnoreCase("compile")) {
+            out.append(inner).append("<scope>").append(escape(dependency.scope)).append("</scope>\n");
+        }
+        if (dependency.optional) {
+            out.append(inner).append("<optional>true</optional>\n");
+        }
+        out.append(indent).append("</dependency>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * Single StAX pass. Tag positions are tracked with a cursor that follows the reader through the source: every
+     * markup construct is an event and text cannot contain a raw {@code '<'}, so searching forward from the cursor
+     * finds exactly the construct the reader just reported. (The reader's own character offsets drift and are not
+     * used.)
+     */
+    private void read() throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(source));
+
+        Deque<String> path = new ArrayDeque<>();
+        Deque<int[]> startTags = new ArrayDeque<>(); // {tag start, tag end, self-closing}
+        StringBuilder text = new StringBuilder();
+        Map<String, String> fields = new HashMap<>();
+        Map<String, Field> fieldElements = new HashMap<>();
+        int cursor = 0;
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = qualifiedName(reader);
+                    path.addLast(path.isEmpty() ? reader.getLocalName() : path.getLast() + "/" + reader.getLocalName());
+                    int tagStart = findTag(source, "<" + name, cursor);
+                    int tagEnd = endOfTag(source, tagStart);
+                    startTags.addLast(new int[] {tagStart, tagEnd, source.charAt(tagEnd - 2) == '/' ? 1 : 0});
+                    cursor = tagEnd;
+                    text.setLength(0);
+                    if (path.getLast().equals(MANAGED_DEPENDENCY_PATH)) {
+                        fields.clear();
+                    } else if (path.getLast().equals(DEPENDENCY_PATH)) {
+                        fields.clear();
+                        fieldElements = new HashMap<>();
+                        if (childIndent == null) {
+                            childIndent = source.substring(lineStart(source, tagStart), tagStart);
+                        }
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getText());
+                    if (event == XMLStreamConstants.CDATA) {
+                        cursor = source.indexOf("]]>", source.indexOf("<![CDATA[", cursor)) + 3;
+                    }
+                } else if (event == XMLStreamConstants.COMMENT) {
+                    cursor = source.indexOf("-->", source.indexOf("<!--", cursor) + 4) + 3;
+                } else if (event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+                    cursor = source.indexOf("?>", source.indexOf("<?", cursor)) + 2;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String current = path.removeLast();
+                    int[] startTag = startTags.removeLast();
+                    boolean selfClosing = startTag[2] == 1;
+                    int closeStart = startTag[1];
+                    int closeEnd = startTag[1];
+                    if (!selfClosing) {
+                        closeStart = findTag(source, "</" + qualifiedName(reader), cursor);
+                        closeEnd = endOfTag(source, closeStart);
+                        cursor = closeEnd;
+                    }
+                    Region content = new Region(startTag[1], closeStart);
+                    String value = text.toString().trim();
+                    text.setLength(0);
+                    String parent = path.peekLast();
+
+                    if (MANAGED_DEPENDENCY_PATH.equals(parent)) {
+                        fields.put(reader.getLocalName(), value);
+                    } else if (current.equals(MANAGED_DEPENDENCY_PATH)) {
+                        String groupId = fields.get("groupId");
+                        String artifactId = fields.get("artifactId");
+                        if (groupId != null && !groupId.isEmpty() && artifactId != null && !artifactId.isEmpty()) {
+                            managedDependencies.add(new Dependency(groupId, artifactId, fields.get("version"), fields.get("scope"), false));
+                        }
+                    } else if (DEPENDENCY_PATH.equals(parent)) {
+                        fields.put(reader.getLocalName(), value);
+                        fieldElements.putIfAbsent(reader.getLocalName(),
+                                new Field(new Region(startTag[0], closeEnd), selfClosing ? null : content));
+                    } else if (current.equals(DEPENDENCY_PATH)) {
+                        String groupId = fields.get("groupId");
+                        String artifactId = fields.get("artifactId");
+                        if (groupId != null && !groupId.isEmpty() && artifactId != null && !artifactId.isEmpty()) {
+                            Dependency dependency = new Dependency(groupId, artifactId, fields.get("version"),
+                                    fields.get("scope"), fields.containsKey("optional") && !"false".equals(fields.get("optional")));
+                            if (dependencies.putIfAbsent(dependency.key(), dependency) == null) {
+                                declared.put(dependency.key(), dependency);
+                                dependencyFields.put(dependency.key(), fieldElements);
+                            }
+                        }
+                    } else if (current.equals(DEPENDENCIES_PATH)) {
+                        dependenciesTag = selfClosing ? new Region(startTag[0], startTag[1]) : null;
+                        dependenciesClose = selfClosing ? -1 : closeStart;
+                    } else if (current.equals(PROJECT_VERSION_PATH) || current.equals(PARENT_GROUP_ID_PATH)
+                            || current.equals(PARENT_ARTIFACT_ID_PATH) || current.equals(PARENT_VERSION_PATH)
+                            || PROPERTIES_PATH.equals(parent)) {
+                        if (!selfClosing) {
+                            textRegions.put(current, content);
+                            texts.put(current, value);
+                        }
+                    } else if (path.isEmpty()) {
+                        projectClose = closeStart;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (projectClose < 0) {
+            throw new XMLStreamException("Not a pom: no root element");
+        }
+    }
+
+    private static String qualifiedName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+    }
+
+    /**
+     * Finds {@code <name} or {@code </name} at or after {@code from}, as a whole name.
+     */
+    private static int findTag(String source, String open, int from) throws XMLStreamException {
+        int at = source.indexOf(open, from);
+        while (at >= 0) {
+            int next = at + open.length();
+            if (next < source.length() && (Character.isWhitespace(source.charAt(next)) || source.charAt(next) == '>' || source.charAt(next) == '/')) {
+                return at;
+            }
+            at = source.indexOf(open, next);
+        }
+        throw new XMLStreamException("Could not locate " + open + "> in the source");
+    }
+
+    /**
+     * Returns the index just past the {@code '>'} closing the tag at {@code tagStart}, skipping quoted attributes.
+     */
+    private static int endOfTag(String source, int tagStart) {
+        char quote = 0;
+        for (int i = tagStart; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return source.length();
+    }
+
+    private static int lineStart(String source, int index) {
+        int start = index;
+        while (start > 0 && (source.charAt(start - 1) == ' ' || source.charAt(start - 1) == '\t')) {
+            start--;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,209 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the cached clones under {@code ../temp} fresh so a run does not have to fetch on its critical path.
+ * <p>
+ * Every run records its use of a clone. In service mode ({@code --prefetch}) a scheduler fetches each clone on a
+ * cadence set by how often it was used over the last week: every 2 minutes for a clone used ten or more times a day,
+ * every 10 minutes for one used daily, hourly otherwise, and not at all once it has gone a week unused. Each delay is
+ * jittered by up to 25% so clones with the same cadence are not fetched in lockstep. A run treats refs fetched less
+ * than {@link #FRESH_FOR} ago as current.
+ */
+final class RepositoryPrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryPrefetcher.class);
+
+    private static final Duration FRESH_FOR = Duration.ofMinutes(5);
+    private static final Duration USAGE_WINDOW = Duration.ofDays(7);
+    private static final Duration SCAN_INTERVAL = Duration.ofMinutes(1);
+    private static final double JITTER = 0.25;
+    private static final String USAGE_FILE_NAME = "adk-usage";
+    private static final int MAX_USAGE_ENTRIES = 200;
+
+    private RepositoryPrefetcher() {
+    }
+
+    /**
+     * Notes that a run used the clone's {@code branch}, which decides how often the service fetches it.
+     */
+    static void recordUse(Path clone, String branch) {
+        Path usageFile = usageFile(clone);
+        if (usageFile == null) {
+            return;
+        }
+        try {
+            List<String> entries = Files.exists(usageFile) ? new ArrayList<>(Files.readAllLines(usageFile, StandardCharsets.UTF_8)) : new ArrayList<>();
+            entries.add(Instant.now() + "\t" + branch);
+            List<String> kept = entries.subList(Math.max(0, entries.size() - MAX_USAGE_ENTRIES), entries.size());
+            Files.write(usageFile, kept, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            logger.debug("Could not record use of {}: {}", clone, e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches {@code branch} unless origin was fetched less than {@link #FRESH_FOR} ago.
+     */
+    static void fetchIfStale(GitRepository repository, String branch) throws IOException, InterruptedException {
+        Instant lastFetched = repository.lastFetched();
+        if (lastFetched != null && lastFetched.plus(FRESH_FOR).isAfter(Instant.now())) {
+            logger.info("✅ origin/{} was fetched {}s ago. Skipping the fetch.", branch,
+                    Duration.between(lastFetched, Instant.now()).toSeconds());
+            return;
+        }
+        repository.fetch(branch);
+    }
+
+    /**
+     * Runs the scheduler for every clone in {@code cacheDir} until the process is stopped. Clones that appear later
+     * are picked up by a periodic rescan.
+     */
+    static void runService(Path cacheDir) throws InterruptedException {
+        logger.info("🔄 Prefetching cached repositories in {}", cacheDir);
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        Set<Path> scheduled = ConcurrentHashMap.newKeySet();
+        scheduler.scheduleWithFixedDelay(() -> {
+            for (Path clone : clones(cacheDir)) {
+                if (!scheduled.add(clone)) {
+                    continue;
+                }
+                // One broken clone must not throw out of the task: the scan would be cancelled for good.
+                try {
+                    Duration cadence = cadence(uses(clone), Instant.now());
+                    if (cadence == null) {
+                        scheduled.remove(clone);
+                        continue;
+                    }
+                    Instant lastFetched = GitRepository.open(clone).lastFetched();
+                    Duration sinceFetch = lastFetched != null ? Duration.between(lastFetched, Instant.now()) : cadence;
+                    long delay = Math.max(0, jittered(cadence).minus(sinceFetch).toMillis());
+                    scheduler.schedule(() -> prefetch(scheduler, scheduled, clone), delay, TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                    logger.warn("⚠️ Could not schedule prefetching of {}: {}", clone.getFileName(), e.toString());
+                    scheduled.remove(clone);
+                }
+            }
+        }, 0, SCAN_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    private static void prefetch(ScheduledExecutorService scheduler, Set<Path> scheduled, Path clone) {
+        try {
+            prefetchAndReschedule(scheduler, scheduled, clone);
+        } catch (RuntimeException e) {
+            // Left to the next scan, which schedules the clone again.
+            logger.warn("⚠️ Prefetch of {} failed: {}", clone.getFileName(), e.toString());
+            scheduled.remove(clone);
+        }
+    }
+
+    private static void prefetchAndReschedule(ScheduledExecutorService scheduler, Set<Path> scheduled, Path clone) {
+        List<String> uses = uses(clone);
+        Duration cadence = cadence(uses, Instant.now());
+        if (cadence == null || !Files.isDirectory(clone)) {
+            // Unused for a week (or deleted); a rescan schedules it again once a run uses it.
+            logger.info("Stopped prefetching {}: not used in the last {} days.", clone.getFileName(), USAGE_WINDOW.toDays());
+            scheduled.remove(clone);
+            return;
+        }
+        String branch = uses.get(uses.size() - 1).split("\t", 2)[1];
+        try {
+            GitRepository.open(clone).fetch(branch);
+            logger.debug("Prefetched {} origin/{}; next fetch in about {} minutes.", clone.getFileName(), branch, cadence.toMinutes());
+        } catch (IOException e) {
+            logger.warn("⚠️ Prefetch of {} failed: {}", clone.getFileName(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        scheduler.schedule(() -> prefetch(scheduler, scheduled, clone), jittered(cadence).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The fetch cadence for a clone, from its recorded uses.
+     *
+     * @return the interval between fetches, or null if the clone was not used within the usage window.
+     */
+    private static Duration cadence(List<String> uses, Instant now) {
+        Instant windowStart = now.minus(USAGE_WINDOW);
+        long recentUses = uses.stream()
+                .map(entry -> Instant.parse(entry.split("\t", 2)[0]))
+                .filter(usedAt -> usedAt.isAfter(windowStart))
+                .count();
+        if (recentUses == 0) {
+            return null;
+        }
+        double usesPerDay = (double) recentUses / USAGE_WINDOW.toDays();
+        if (usesPerDay >= 10) {
+            return Duration.ofMinutes(2);
+        }
+        return usesPerDay >= 1 ? Duration.ofMinutes(10) : Duration.ofMinutes(60);
+    }
+
+    private static Duration jittered(Duration cadence) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return Duration.ofMillis((long) (cadence.toMillis() * factor));
+    }
+
+    private static List<String> uses(Path clone) {
+        Path usageFile = usageFile(clone);
+        try {
+            return usageFile != null && Files.exists(usageFile)
+                    ? Files.readAllLines(usageFile, StandardCharsets.UTF_8).stream()
+                            .filter(RepositoryPrefetcher::isUsageEntry)
+                            .collect(Collectors.toList())
+                    : List.of();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static boolean isUsageEntry(String line) {
+        String[] parts = line.split("\t", 2);
+        try {
+            Instant.parse(parts[0]);
+            return parts.length == 2 && !parts[1].isBlank();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The primary clones in the cache directory: directories with their own .git directory. Pooled worktrees and
+     * other entries are skipped.
+     */
+    private static List<Path> clones(Path cacheDir) {
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            return entries.filter(dir -> Files.isDirectory(dir.resolve(".git"))).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not list cached repositories in {}: {}", cacheDir, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static Path usageFile(Path clone) {
+        Path gitDir = clone.resolve(".git");
+        return Files.isDirectory(gitDir) ? gitDir.resolve(USAGE_FILE_NAME) : null;
+    }
+}
@@ -0,0 +1,484 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A chain of deterministic fixers for the mechanical compiler errors the agents keep producing.
+ * <p>
+ * The chain runs on the structured diagnostics parsed from a failed Maven build before the self-healing loop
+ * pays for a {@code BuildCorrectorAgent} round trip. Each {@link Fixer} only touches files it can fix with
+ * certainty; anything it does not recognise is left for the agent.
+ */
+final class RuleBasedFixers {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleBasedFixers.class);
+
+    // [ERROR] /path/to/src/main/java/com/x/Foo.java:[12,8] cannot find symbol
+    //   symbol:   class Bar
+    //   location: class com.x.Foo
+    // The failure summary repeats each error with every line prefixed by [ERROR].
+    private static final Pattern DIAGNOSTIC_PATTERN = Pattern.compile("^\\[ERROR\\] (.+?\\.java):\\[(\\d+),(\\d+)\\] (.+)$");
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("^(?:\\[ERROR\\])?\\s+symbol:\\s+(\\w+)\\s+(.+)$");
+    private static final Pattern LOCATION_PATTERN = Pattern.compile("^(?:\\[ERROR\\])?\\s+location:\\s+(.+)$");
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final Pattern IMPORT_PATTERN = Pattern.compile("^\\s*import\\s+(?:static\\s+)?[\\w.*]+\\s*;", Pattern.MULTILINE);
+
+    /**
+     * A single compiler error, as reported by maven-compiler-plugin.
+     */
+    static final class Diagnostic {
+        final Path file;
+        final int line;
+        final int column;
+        final String message;
+        String symbolKind;
+        String symbol;
+        String location;
+
+        Diagnostic(Path file, int line, int column, String message) {
+            this.file = file;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        boolean isMissingSymbol(String kind) {
+            return message.startsWith("cannot find symbol") && kind.equals(symbolKind);
+        }
+    }
+
+    /**
+     * A deterministic fix for one class of compiler error.
+     */
+    interface Fixer {
+        String name();
+
+        /**
+         * Applies the fix for the matching diagnostics and returns a description of each change made.
+         */
+        List<String> fix(List<Diagnostic> diagnostics, SourceIndex index) throws IOException;
+    }
+
+    private final List<Fixer> fixers = new ArrayList<>();
+
+    static RuleBasedFixers defaultChain() {
+        return new RuleBasedFixers()
+                .with(new PackageDeclarationFixer())
+                .with(new JakartaNamespaceFixer())
+                .with(new MissingImportFixer())
+                .with(new LombokAnnotationFixer());
+    }
+
+    RuleBasedFixers with(Fixer fixer) {
+        fixers.add(fixer);
+        return this;
+    }
+
+    /**
+     * Runs every fixer against the diagnostics in {@code buildLog}.
+     *
+     * @return the changes applied; empty if no rule matched and the failure needs the agent.
+     */
+    List<String> apply(String buildLog, Path projectRoot) {
+        List<Diagnostic> diagnostics = parseDiagnostics(buildLog);
+        if (diagnostics.isEmpty()) {
+            return List.of();
+        }
+        logger.info("--- 🔧 Running rule-based fixers on {} compiler diagnostics ---", diagnostics.size());
+        List<String> changes = new ArrayList<>();
+        for (Fixer fixer : fixers) {
+            try {
+                // Re-index for each fixer so later rules see the files earlier rules rewrote.
+                List<String> applied = fixer.fix(diagnostics, SourceIndex.build(projectRoot));
+                for (String change : applied) {
+                    logger.info("🔧 [{}] {}", fixer.name(), change);
+                }
+                changes.addAll(applied);
+            } catch (IOException e) {
+                logger.warn("⚠️ Rule-based fixer {} failed: {}", fixer.name(), e.getMessage());
+            }
+        }
+        logger.info("--- ✅ Finished rule-based fixers. Applied {} fixes ---", changes.size());
+        return changes;
+    }
+
+    static List<Diagnostic> parseDiagnostics(String buildLog) {
+        Map<String, Diagnostic> diagnostics = new LinkedHashMap<>();
+        if (buildLog == null) {
+            return List.of();
+        }
+        Diagnostic current = null;
+        for (String line : buildLog.split("\\r?\\n")) {
+            Matcher m = DIAGNOSTIC_PATTERN.matcher(line);
+            if (m.matches()) {
+                if (current != null) {
+                    diagnostics.putIfAbsent(key(current), current);
+                }
+                current = new Diagnostic(Paths.get(m.group(1).trim()), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)), m.group(4).trim());
+                continue;
+            }
+            if (current == null) {
+                continue;
+            }
+            Matcher symbol = SYMBOL_PATTERN.matcher(line);
+            Matcher location = LOCATION_PATTERN.matcher(line);
+            if (symbol.matches()) {
+                current.symbolKind = symbol.group(1);
+                current.symbol = symbol.group(2).trim();
+            } else if (location.matches()) {
+                current.location = location.group(1).trim();
+            } else {
+                // Maven repeats every error in its failure summary; keep the first occurrence only.
+                diagnostics.putIfAbsent(key(current), current);
+                current = null;
+            }
+        }
+        if (current != null) {
+            diagnostics.putIfAbsent(key(current), current);
+        }
+        return new ArrayList<>(diagnostics.values());
+    }
+
+    private static String key(Diagnostic d) {
+        return d.file + ":" + d.line + ":" + d.column + ":" + d.message + ":" + d.symbol;
+    }
+
+    /**
+     * The Java sources of the project, indexed by simple type name.
+     */
+    static final class SourceIndex {
+        final Path projectRoot;
+        final Map<String, List<Path>> typesBySimpleName = new HashMap<>();
+        final boolean hasLombok;
+
+        private SourceIndex(Path projectRoot, boolean hasLombok) {
+            this.projectRoot = projectRoot;
+            this.hasLombok = hasLombok;
+        }
+
+        static SourceIndex build(Path projectRoot) throws IOException {
+            Path pom = projectRoot.resolve("pom.xml");
+            boolean lombok = Files.exists(pom) && Files.readString(pom, StandardCharsets.UTF_8).contains("org.projectlombok");
+            SourceIndex index = new SourceIndex(projectRoot, lombok);
+            for (Path root : sourceRoots(projectRoot)) {
+                try (Stream<Path> files = Files.walk(root)) {
+                    for (Path file : files.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList())) {
+                        String simpleName = file.getFileName().toString().replaceFirst("\\.java$", "");
+                        index.typesBySimpleName.computeIfAbsent(simpleName, k -> new ArrayList<>()).add(file);
+                    }
+                }
+            }
+            return index;
+        }
+
+        static List<Path> sourceRoots(Path projectRoot) {
+            List<Path> roots = new ArrayList<>();
+            for (Path root : List.of(projectRoot.resolve("src/main/java"), projectRoot.resolve("src/test/java"))) {
+                if (Files.isDirectory(root)) {
+                    roots.add(root);
+                }
+            }
+            return roots;
+        }
+
+        Path uniqueType(String simpleName) {
+            List<Path> candidates = typesBySimpleName.get(simpleName);
+            return candidates != null && candidates.size() == 1 ? candidates.get(0) : null;
+        }
+
+        Path resolve(Path reported) {
+            return reported.isAbsolute() ? reported : projectRoot.resolve(reported);
+        }
+    }
+
+    static String packageOf(String source) {
+        Matcher m = PACKAGE_PATTERN.matcher(source);
+        return m.find() ? m.group(1) : "";
+    }
+
+    static String addImport(String source, String qualifiedName) {
+        if (source.contains("import " + qualifiedName + ";")) {
+            return source;
+        }
+        String importLine = "import " + qualifiedName + ";\n";
+        Matcher imports = IMPORT_PATTERN.matcher(source);
+        int insertAt = -1;
+        while (imports.find()) {
+            insertAt = imports.end();
+        }
+        if (insertAt >= 0) {
+            return source.substring(0, insertAt) + "\n" + importLine.stripTrailing() + source.substring(insertAt);
+        }
+        Matcher pkg = PACKAGE_PATTERN.matcher(source);
+        if (pkg.find()) {
+            return source.substring(0, pkg.end()) + "\n\n" + importLine.stripTrailing() + source.substring(pkg.end());
+        }
+        return importLine + source;
+    }
+
+    /**
+     * Adds {@code annotation} directly above the declaration of the type {@code simpleName}.
+     */
+    static String annotateType(String source, String simpleName, String annotation) {
+        Pattern declaration = Pattern.compile("^([ \\t]*)((?:(?:public|protected|private|abstract|final|static)[ \\t]+)*(?:class|record|enum)\\s+" + Pattern.quote(simpleName) + "\\b)", Pattern.MULTILINE);
+        Matcher m = declaration.matcher(source);
+        if (!m.find()) {
+            return source;
+        }
+        return source.substring(0, m.start()) + m.group(1) + annotation + "\n" + source.substring(m.start());
+    }
+
+    /**
+     * Rewrites the package declaration of a file the compiler reported that does not match the file's directory under
+     * the source root, and updates imports of the moved types elsewhere in the project. Files without a diagnostic are
+     * left alone, even if their package differs from their directory.
+     */
+    static final class PackageDeclarationFixer implements Fixer {
+        @Override
+        public String name() {
+            return "package-declaration";
+        }
+
+        @Override
+        public List<String> fix(List<Diagnostic> diagnostics, SourceIndex index) throws IOException {
+            List<String> changes = new ArrayList<>();
+            Map<String, String> movedTypes = new HashMap<>();
+            Set<Path> reported = new LinkedHashSet<>();
+            for (Diagnostic diagnostic : diagnostics) {
+                reported.add(index.resolve(diagnostic.file).toAbsolutePath().normalize());
+            }
+            for (Path root : SourceIndex.sourceRoots(index.projectRoot)) {
+                for (List<Path> files : index.typesBySimpleName.values()) {
+                    for (Path file : files) {
+                        if (!file.startsWith(root) || !reported.contains(file.toAbsolutePath().normalize())) {
+                            continue;
+                        }
+                        Path dir = root.relativize(file).getParent();
+                        String expected = dir == null ? "" : dir.toString().replace('\\', '/').replace('/', '.');
+                        String source = Files.readString(file, StandardCharsets.UTF_8);
+                        String declared = packageOf(source);
+                        if (expected.isEmpty() || expected.equals(declared)) {
+                            continue;
+                        }
+                        String updated = declared.isEmpty()
+                                ? "package " + expected + ";\n\n" + source
+                                : PACKAGE_PATTERN.matcher(source).replaceFirst(Matcher.quoteReplacement("package " + expected + ";"));
+                        StagedFileWriter.writeFile(file, updated);
+                        String simpleName = file.getFileName().toString().replaceFirst("\\.java$", "");
+                        if (!declared.isEmpty()) {
+                            movedTypes.put(declared + "." + simpleName, expected + "." + simpleName);
+                        }
+                        changes.add("Changed package of " + index.projectRoot.relativize(file) + " from '" + declared + "' to '" + expected + "'");
+                    }
+                }
+            }
+            if (!movedTypes.isEmpty()) {
+                for (List<Path> files : index.typesBySimpleName.values()) {
+                    for (Path file : files) {
+                        String source = Files.readString(file, StandardCharsets.UTF_8);
+                        String updated = source;
+                        for (Map.Entry<String, String> moved : movedTypes.entrySet()) {
+                            updated = updated.replace("import " + moved.getKey() + ";", "import " + moved.getValue() + ";");
+                        }
+                        if (!updated.equals(source)) {
+                            StagedFileWriter.writeFile(file, updated);
+                            changes.add("Updated imports of moved types in " + index.projectRoot.relativize(file));
+                        }
+                    }
+                }
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Replaces {@code javax.*} imports that moved to {@code jakarta.*} in Spring Boot 3.
+     */
+    static final class JakartaNamespaceFixer implements Fixer {
+        private static final Pattern MISSING_JAVAX = Pattern.compile("package javax\\.([\\w.]+) does not exist");
+        private static final Set<String> MIGRATED = Set.of("validation", "persistence", "servlet", "transaction", "inject", "ws", "mail", "xml", "json", "annotation", "websocket");
+
+        @Override
+        public String name() {
+            return "jakarta-namespace";
+        }
+
+        @Override
+        public List<String> fix(List<Diagnostic> diagnostics, SourceIndex index) throws IOException {
+            Map<Path, Set<String>> namespacesByFile = new LinkedHashMap<>();
+            for (Diagnostic d : diagnostics) {
+                Matcher m = MISSING_JAVAX.matcher(d.message);
+                if (!m.find()) {
+                    continue;
+                }
+                String namespace = m.group(1);
+                String root = namespace.split("\\.")[0];
+                // javax.annotation.processing and javax.xml.parsers etc. are still part of the JDK.
+                if (!MIGRATED.contains(root) || namespace.startsWith("annotation.processing") || (root.equals("xml") && !namespace.startsWith("xml.bind"))) {
+                    continue;
+                }
+                namespacesByFile.computeIfAbsent(index.resolve(d.file), k -> new LinkedHashSet<>()).add(namespace);
+            }
+            List<String> changes = new ArrayList<>();
+            for (Map.Entry<Path, Set<String>> entry : namespacesByFile.entrySet()) {
+                Path file = entry.getKey();
+                if (!Files.exists(file)) {
+                    continue;
+                }
+                String source = Files.readString(file, StandardCharsets.UTF_8);
+                String updated = source;
+                for (String namespace : entry.getValue()) {
+                    updated = updated.replaceAll("\\bjavax\\." + Pattern.quote(namespace) + "\\b", Matcher.quoteReplacement("jakarta." + namespace));
+                }
+                if (!updated.equals(source)) {
+                    StagedFileWriter.writeFile(file, updated);
+                    changes.add("Replaced javax." + String.join(", javax.", entry.getValue()) + " with jakarta.* in " + index.projectRoot.relativize(file));
+                }
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Adds the import for an unresolved type that exists exactly once in the project.
+     */
+    static final class MissingImportFixer implements Fixer {
+        @Override
+        public String name() {
+            return "missing-import";
+        }
+
+        @Override
+        public List<String> fix(List<Diagnostic> diagnostics, SourceIndex index) throws IOException {
+            List<String> changes = new ArrayList<>();
+            for (Diagnostic d : diagnostics) {
+                String simpleName;
+                if (d.isMissingSymbol("class")) {
+                    simpleName = d.symbol.replaceAll("<.*>", "").trim();
+                } else if (d.isMissingSymbol("variable") && Character.isUpperCase(d.symbol.charAt(0))) {
+                    // Static access such as Status.ACTIVE is reported as a missing variable.
+                    simpleName = d.symbol;
+                } else {
+                    continue;
+                }
+                Path typeFile = index.uniqueType(simpleName);
+                Path file = index.resolve(d.file);
+                if (typeFile == null || typeFile.equals(file) || !Files.exists(file)) {
+                    continue;
+                }
+                String typePackage = packageOf(Files.readString(typeFile, StandardCharsets.UTF_8));
+                String source = Files.readString(file, StandardCharsets.UTF_8);
+                if (typePackage.isEmpty() || typePackage.equals(packageOf(source))) {
+                    continue;
+                }
+                String updated = addImport(source, typePackage + "." + simpleName);
+                if (!updated.equals(source)) {
+                    StagedFileWriter.writeFile(file, updated);
+                    changes.add("Added import " + typePackage + "." + simpleName + " to " + index.projectRoot.relativize(file));
+                }
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Adds the Lombok annotation whose generated member the compiler could not find
+     * ({@code log}, getters, setters, {@code builder()}), when Lombok is on the project's classpath.
+     */
+    static final class LombokAnnotationFixer implements Fixer {
+        private static final Pattern ACCESSOR = Pattern.compile("^(get|is|set)([A-Z]\\w*)\\(.*\\)$");
+        private static final Pattern LOCATION_TYPE = Pattern.compile("(?:of type|class)\\s+([\\w.]+)");
+
+        @Override
+        public String name() {
+            return "lombok-annotation";
+        }
+
+        @Override
+        public List<String> fix(List<Diagnostic> diagnostics, SourceIndex index) throws IOException {
+            List<String> changes = new ArrayList<>();
+            if (!index.hasLombok) {
+                return changes;
+            }
+            for (Diagnostic d : diagnostics) {
+                if (d.isMissingSymbol("variable") && "log".equals(d.symbol)) {
+                    Path file = index.resolve(d.file);
+                    String simpleName = file.getFileName().toString().replaceFirst("\\.java$", "");
+                    addAnnotation(file, simpleName, "Slf4j", "lombok.extern.slf4j.Slf4j", List.of("@Slf4j"), changes, index);
+                } else if (d.isMissingSymbol("method") && d.location != null) {
+                    Matcher type = LOCATION_TYPE.matcher(d.location);
+                    if (!type.find()) {
+                        continue;
+                    }
+                    String qualified = type.group(1);
+                    String simpleName = qualified.substring(qualified.lastIndexOf('.') + 1);
+                    Path typeFile = index.uniqueType(simpleName);
+                    if (typeFile == null) {
+                        continue;
+                    }
+                    if (d.symbol.startsWith("builder(")) {
+                        addAnnotation(typeFile, simpleName, "Builder", "lombok.Builder", List.of("@Builder"), changes, index);
+                        String source = Files.readString(typeFile, StandardCharsets.UTF_8);
+                        if (source.contains("@NoArgsConstructor") && !source.contains("@AllArgsConstructor")) {
+                            // @Builder needs an all-args constructor once another constructor is declared.
+                            addAnnotation(typeFile, simpleName, "AllArgsConstructor", "lombok.AllArgsConstructor", List.of("@AllArgsConstructor"), changes, index);
+                        }
+                        continue;
+                    }
+                    Matcher accessor = ACCESSOR.matcher(d.symbol);
+                    if (!accessor.matches()) {
+                        continue;
+                    }
+                    String field = Character.toLowerCase(accessor.group(2).charAt(0)) + accessor.group(2).substring(1);
+                    String source = Files.readString(typeFile, StandardCharsets.UTF_8);
+                    if (!Pattern.compile("\\b" + Pattern.quote(field) + "\\s*[;=]").matcher(source).find()) {
+                        continue; // No backing field, so Lombok would not help.
+                    }
+                    if ("set".equals(accessor.group(1))) {
+                        addAnnotation(typeFile, simpleName, "Setter", "lombok.Setter", List.of("@Data", "@Setter"), changes, index);
+                    } else {
+                        addAnnotation(typeFile, simpleName, "Getter", "lombok.Getter", List.of("@Data", "@Getter", "@Value"), changes, index);
+                    }
+                }
+            }
+            return changes;
+        }
+
+        private static void addAnnotation(Path file, String simpleName, String annotation, String importName,
+                                          List<String> alreadySatisfiedBy, List<String> changes, SourceIndex index) throws IOException {
+            if (!Files.exists(file)) {
+                return;
+            }
+            String source = Files.readString(file, StandardCharsets.UTF_8);
+            for (String existing : alreadySatisfiedBy) {
+                if (Pattern.compile(Pattern.quote(existing) + "\\b").matcher(source).find()) {
+                    return;
+                }
+            }
+            String updated = annotateType(source, simpleName, "@" + annotation);
+            if (updated.equals(source)) {
+                return;
+            }
+            updated = addImport(updated, importName);
+            StagedFileWriter.writeFile(file, updated);
+            changes.add("Added @" + annotation + " to " + index.projectRoot.relativize(file));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the artifacts (and their versions) managed by a Spring Boot version's BOM,
+ * {@code spring-boot-dependencies}.
+ * <p>
+ * The index is built from the BOM in the shared local Maven repository, following imported BOMs that are present
+ * there too, and saved next to it under {@code .adk-bom-index/}, so later runs load a flat file instead of parsing
+ * poms. If the BOM was never downloaded the index is empty and {@link #isAvailable()} is false.
+ */
+final class SpringBootBom {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpringBootBom.class);
+
+    private static final String INDEX_DIR = ".adk-bom-index";
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+    private static final int MAX_IMPORT_DEPTH = 5;
+
+    private static final Map<String, SpringBootBom> loaded = new ConcurrentHashMap<>();
+
+    private final String springBootVersion;
+    private final Map<String, String> managedVersions;
+
+    private SpringBootBom(String springBootVersion, Map<String, String> managedVersions) {
+        this.springBootVersion = springBootVersion;
+        this.managedVersions = Collections.unmodifiableMap(managedVersions);
+    }
+
+    /**
+     * Returns the index for a Spring Boot version, waiting for the background BOM download if it is still running.
+     * An unavailable index is not kept, so a later call (the next issue of a {@code --jql} run) picks up a BOM that
+     * has been downloaded since.
+     */
+    static SpringBootBom forVersion(String springBootVersion) {
+        SpringBootBom cached = loaded.get(springBootVersion);
+        if (cached != null) {
+            return cached;
+        }
+        SpringBootBom bom = load(springBootVersion);
+        return bom.isAvailable() ? loaded.computeIfAbsent(springBootVersion, version -> bom) : bom;
+    }
+
+    boolean isAvailable() {
+        return !managedVersions.isEmpty();
+    }
+
+    String springBootVersion() {
+        return springBootVersion;
+    }
+
+    boolean manages(String groupId, String artifactId) {
+        return managedVersions.containsKey(groupId + ":" + artifactId);
+    }
+
+    /**
+     * The version the BOM manages for {@code groupId:artifactId}, or null if it does not manage it.
+     */
+    String managedVersion(String groupId, String artifactId) {
+        return managedVersions.get(groupId + ":" + artifactId);
+    }
+
+    private static SpringBootBom load(String springBootVersion) {
+        Path indexFile = MavenLauncher.localRepository().resolve(INDEX_DIR).resolve("spring-boot-" + springBootVersion + ".properties");
+        if (Files.exists(indexFile)) {
+            Properties index = new Properties();
+            try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                index.load(reader);
+                Map<String, String> managed = new HashMap<>();
+                index.stringPropertyNames().forEach(key -> managed.put(key, index.getProperty(key)));
+                logger.info("Loaded Spring Boot {} BOM index ({} managed artifacts).", springBootVersion, managed.size());
+                return new SpringBootBom(springBootVersion, managed);
+            } catch (IOException e) {
+                logger.warn("⚠️ Could not read BOM index {}, rebuilding it: {}", indexFile, e.getMessage());
+            }
+        }
+
+        if (!MavenLauncher.isBomPresent(springBootVersion)) {
+            MavenLauncher.awaitSeeding();
+        }
+        Path bom = MavenLauncher.bomPath(springBootVersion);
+        if (!Files.exists(bom)) {
+            logger.warn("⚠️ Spring Boot {} BOM is not in the local Maven repository; no BOM index is available.", springBootVersion);
+            return new SpringBootBom(springBootVersion, Collections.emptyMap());
+        }
+
+        Map<String, String> managed = new TreeMap<>();
+        if (index(bom, managed, new HashSet<>(), 0)) {
+            save(indexFile, managed);
+        } else {
+            logger.info("Some imported BOMs are missing locally; the index is used for this run but not saved.");
+        }
+        logger.info("Indexed Spring Boot {} BOM ({} managed artifacts).", springBootVersion, managed.size());
+        return new SpringBootBom(springBootVersion, managed);
+    }
+
+    /**
+     * Adds the BOM's managed versions, then those of the BOMs it imports. As in Maven, entries declared directly in
+     * a BOM win over imported ones, and earlier imports win over later ones.
+     *
+     * @return false if the BOM or one of its imports could not be read.
+     */
+    private static boolean index(Path bomFile, Map<String, String> managed, Set<Path> visited, int depth) {
+        if (depth > MAX_IMPORT_DEPTH || !visited.add(bomFile)) {
+            return true;
+        }
+        PomModel bom;
+        try {
+            bom = PomModel.parse(Files.readString(bomFile, StandardCharsets.UTF_8));
+        } catch (IOException | XMLStreamException e) {
+            logger.warn("⚠️ Could not parse BOM {}: {}", bomFile, e.getMessage());
+            return false;
+        }
+        Map<String, String> properties = new HashMap<>(bom.properties());
+        if (bom.version() != null) {
+            properties.put("project.version", bom.version());
+        }
+
+        List<Path> imports = new ArrayList<>();
+        for (PomModel.Dependency dependency : bom.managedDependencies()) {
+            String version = interpolate(dependency.version, properties);
+            if (version == null) {
+                continue;
+            }
+            if ("import".equals(dependency.scope)) {
+                Path imported = MavenLauncher.localRepository()
+                        .resolve(dependency.groupId.replace('.', '/'))
+                        .resolve(dependency.artifactId)
+                        .resolve(version)
+                        .resolve(dependency.artifactId + "-" + version + ".pom");
+                imports.add(imported);
+            } else {
+                managed.putIfAbsent(dependency.groupId + ":" + dependency.artifactId, version);
+            }
+        }
+        boolean complete = true;
+        for (Path imported : imports) {
+            if (Files.exists(imported)) {
+                complete &= index(imported, managed, visited, depth + 1);
+            } else {
+                logger.debug("Imported BOM {} is not in the local repository; skipping it.", imported);
+                complete = false;
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Resolves {@code ${...}} references against the BOM's properties; returns null if any stays unresolved.
+     */
+    private static String interpolate(String value, Map<String, String> properties) {
+        if (value == null) {
+            return null;
+        }
+        String result = value;
+        for (int i = 0; i < 10 && result.contains("${"); i++) {
+            Matcher matcher = PROPERTY_REFERENCE.matcher(result);
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                String replacement = properties.get(matcher.group(1));
+                if (replacement == null) {
+                    return null;
+                }
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(replacement));
+            }
+            matcher.appendTail(resolved);
+            result = resolved.toString();
+        }
+        return result.contains("${") ? null : result;
+    }
+
+    private static void save(Path indexFile, Map<String, String> managed) {
+        Properties index = new Properties();
+        index.putAll(managed);
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path temp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                index.store(writer, "Managed artifacts of the Spring Boot BOM (groupId:artifactId=version)");
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not save BOM index {}: {}", indexFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.msn.autonomous;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local, line-based comparison of two SRS revisions that ignores changes with no functional meaning.
+ * <p>
+ * Both revisions are normalized before they are compared: Jira markup is reduced to plain text by {@link JiraMarkup}
+ * (revisions stored before it existed still contain markup), the repository location keys and list bullets are
+ * dropped, whitespace is collapsed and blank lines are removed. Revisions that are equal after normalization have no changes, and the
+ * ChangeAnalysisAgent is not needed; otherwise only the changed hunks are passed to it instead of both documents.
+ */
+final class SrsDiff {
+
+    // Where the project lives, not what it does: moving the repository or the base branch changes no requirement.
+    private static final Set<String> LOCATION_KEYS = Set.of("github-url", "checkout_branch");
+    private static final Pattern KEY_LINE = Pattern.compile("^([A-Za-z_][A-Za-z0-9_ -]*?)\\s*:.*$");
+    private static final Pattern BULLET = Pattern.compile("^[*#-]+\\s+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int CONTEXT_LINES = 2;
+    // Beyond this many line pairs the comparison table gets too large; the whole revision is reported as changed.
+    private static final long MAX_COMPARISON_CELLS = 4_000_000L;
+
+    private SrsDiff() {
+    }
+
+    /**
+     * Compares two SRS revisions.
+     *
+     * @return the changed hunks in unified-diff style ({@code -} removed, {@code +} added, two lines of context,
+     * hunks separated by {@code @@}), or an empty string if the revisions differ only cosmetically.
+     */
+    static String changedHunks(String oldSrs, String newSrs) {
+        List<String> oldLines = normalize(oldSrs);
+        List<String> newLines = normalize(newSrs);
+        if (oldLines.equals(newLines)) {
+            return "";
+        }
+        List<String> diff = diff(oldLines, newLines);
+        StringBuilder hunks = new StringBuilder();
+        int lastPrinted = -1;
+        for (int i = 0; i < diff.size(); i++) {
+            if (diff.get(i).charAt(0) == ' ') {
+                continue;
+            }
+            int start = Math.max(lastPrinted + 1, i - CONTEXT_LINES);
+            hunks.append("@@\n");
+            int end = i;
+            // Extend the hunk over changes that are within the context of each other.
+            for (int j = i + 1; j < diff.size() && j <= end + 2 * CONTEXT_LINES; j++) {
+                if (diff.get(j).charAt(0) != ' ') {
+                    end = j;
+                }
+            }
+            end = Math.min(diff.size() - 1, end + CONTEXT_LINES);
+            for (int j = start; j <= end; j++) {
+                hunks.append(diff.get(j)).append('\n');
+            }
+            lastPrinted = end;
+            i = end;
+        }
+        return hunks.toString();
+    }
+
+    /**
+     * The SRS as the lines that carry meaning, with markup and layout removed.
+     */
+    static List<String> normalize(String srs) {
+        List<String> lines = new ArrayList<>();
+        for (String line : JiraMarkup.toPlainText(srs).split("\\R")) {
+            String text = line.strip();
+            Matcher key = KEY_LINE.matcher(text);
+            if (key.matches() && LOCATION_KEYS.contains(key.group(1).trim().toLowerCase())) {
+                continue;
+            }
+            text = BULLET.matcher(text).replaceFirst("");
+            text = WHITESPACE.matcher(text).replaceAll(" ").strip();
+            if (!text.isEmpty()) {
+                lines.add(text);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * A line diff by longest common subsequence: every line prefixed with {@code ' '}, {@code '-'} or {@code '+'}.
+     */
+    private static List<String> diff(List<String> oldLines, List<String> newLines) {
+        int n = oldLines.size();
+        int m = newLines.size();
+        List<String> diff = new ArrayList<>();
+        if ((long) n * m > MAX_COMPARISON_CELLS) {
+            oldLines.forEach(line -> diff.add("-" + line));
+            newLines.forEach(line -> diff.add("+" + line));
+            return diff;
+        }
+        // common[i][j] is the length of the longest common subsequence of oldLines[i..] and newLines[j..].
+        int[][] common = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                common[i][j] = oldLines.get(i).equals(newLines.get(j))
+                        ? common[i + 1][j + 1] + 1
+                        : Math.max(common[i + 1][j], common[i][j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if (i < n && j < m && oldLines.get(i).equals(newLines.get(j))) {
+                diff.add(" " + oldLines.get(i++));
+                j++;
+            } else if (i < n && (j == m || common[i + 1][j] >= common[i][j + 1])) {
+                // Removals come before additions, as in a unified diff.
+                diff.add("-" + oldLines.get(i++));
+            } else {
+                diff.add("+" + newLines.get(j++));
+            }
+        }
+        return diff;
+    }
+}
@@ -0,0 +1,164 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The SRS revisions a project was generated from, in {@code .ai-state/srs/}.
+ * <p>
+ * {@code latest.txt} holds the last revision, so the change analysis reads one revision however long the history
+ * is. Every revision is also appended to {@code history.log}, without headers or separators, and
+ * {@code index.tsv} records each one's number, date, branch, byte offset, length and SHA-256. A history query reads
+ * the small index and then only the bytes of the revisions it needs. The index is written after the log, so a crash
+ * mid-append leaves at worst some unindexed bytes at the end of the log, which are never read.
+ * <p>
+ * Projects generated before this store kept every revision in {@code .ai-state/jira_issue.txt}; until the first
+ * revision is recorded here, the last revision in that file is the latest one.
+ */
+final class SrsStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SrsStateStore.class);
+
+    static final String STORE_DIR_NAME = "srs";
+    private static final String LATEST_FILE_NAME = "latest.txt";
+    private static final String HISTORY_FILE_NAME = "history.log";
+    private static final String INDEX_FILE_NAME = "index.tsv";
+    private static final String LEGACY_FILE_NAME = "jira_issue.txt";
+
+    private final Path stateDir;
+    private final Path storeDir;
+
+    SrsStateStore(Path stateDir) {
+        this.stateDir = stateDir;
+        this.storeDir = stateDir.resolve(STORE_DIR_NAME);
+    }
+
+    /**
+     * One recorded revision, as listed in the index.
+     */
+    static final class Revision {
+        final int number;
+        final String recordedAt;
+        final String branch;
+        final long offset;
+        final int length;
+        final String sha256;
+
+        Revision(int number, String recordedAt, String branch, long offset, int length, String sha256) {
+            this.number = number;
+            this.recordedAt = recordedAt;
+            this.branch = branch;
+            this.offset = offset;
+            this.length = length;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * @return the last recorded SRS, or null if none was recorded.
+     */
+    String latest() throws IOException {
+        Path latest = storeDir.resolve(LATEST_FILE_NAME);
+        if (Files.exists(latest)) {
+            return Files.readString(latest, StandardCharsets.UTF_8);
+        }
+        Path legacy = stateDir.resolve(LEGACY_FILE_NAME);
+        return Files.exists(legacy) ? lastLegacyRevision(Files.readString(legacy, StandardCharsets.UTF_8)) : null;
+    }
+
+    /**
+     * Records {@code srs} as the latest revision, generated on {@code branch}.
+     */
+    Revision record(String srs, String branch) throws IOException {
+        byte[] bytes = srs.getBytes(StandardCharsets.UTF_8);
+        Path history = storeDir.resolve(HISTORY_FILE_NAME);
+        long offset = Files.exists(history) ? Files.size(history) : 0;
+        List<Revision> revisions = revisions();
+        Revision revision = new Revision(revisions.isEmpty() ? 1 : revisions.get(revisions.size() - 1).number + 1,
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), branch, offset, bytes.length, sha256(bytes));
+
+        StagedFileWriter.appendToFile(history, srs);
+        StagedFileWriter.appendToFile(storeDir.resolve(INDEX_FILE_NAME), String.join("\t",
+                Integer.toString(revision.number), revision.recordedAt, revision.branch, Long.toString(revision.offset),
+                Integer.toString(revision.length), revision.sha256) + "\n");
+        StagedFileWriter.writeFile(storeDir.resolve(LATEST_FILE_NAME), srs);
+        logger.info("✅ Recorded SRS revision {} in {}", revision.number, storeDir.getFileName());
+        return revision;
+    }
+
+    /**
+     * @return every recorded revision, oldest first.
+     */
+    List<Revision> revisions() throws IOException {
+        Path index = storeDir.resolve(INDEX_FILE_NAME);
+        List<Revision> revisions = new ArrayList<>();
+        if (!Files.exists(index)) {
+            return revisions;
+        }
+        for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length != 6) {
+                // An entry cut short by a crash.
+                continue;
+            }
+            try {
+                revisions.add(new Revision(Integer.parseInt(fields[0]), fields[1], fields[2], Long.parseLong(fields[3]),
+                        Integer.parseInt(fields[4]), fields[5]));
+            } catch (NumberFormatException e) {
+                logger.warn("⚠️ Skipping malformed SRS index entry: {}", line);
+            }
+        }
+        return revisions;
+    }
+
+    /**
+     * Reads one revision from the history without reading the others.
+     */
+    String read(Revision revision) throws IOException {
+        byte[] bytes = new byte[revision.length];
+        try (RandomAccessFile history = new RandomAccessFile(storeDir.resolve(HISTORY_FILE_NAME).toFile(), "r")) {
+            history.seek(revision.offset);
+            history.readFully(bytes);
+        }
+        if (!revision.sha256.equals(sha256(bytes))) {
+            throw new IOException("SRS revision " + revision.number + " does not match its checksum.");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The text after the last metadata header of the legacy state file, without its end marker.
+     */
+    private static String lastLegacyRevision(String stateFileContent) {
+        Matcher header = Pattern.compile("^\\*\\*Branch:\\*\\* .*\\R---\\R", Pattern.MULTILINE).matcher(stateFileContent);
+        int start = 0;
+        while (header.find()) {
+            start = header.end();
+        }
+        String latest = stateFileContent.substring(start);
+        int end = latest.lastIndexOf("\n--- END ---");
+        return end >= 0 ? latest.substring(0, end) : latest;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
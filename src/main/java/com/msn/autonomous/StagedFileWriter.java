@@ -0,0 +1,285 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stages the files generated for a project in a scratch directory and publishes them together.
+ * <p>
+ * Nothing in the project changes until {@link #commit()}: a crash or failed merge midway leaves the working tree
+ * untouched. The scratch directory sits with the write manifest, in the git directory of the enclosing working tree
+ * (or next to the project), so it is on the same file system and every file is published with an atomic move, yet a
+ * crash never leaves it inside the source tree. Files whose content did not change are not touched at all, which
+ * keeps their mtimes (and Maven's incremental compilation) valid. Every published change is appended to the run's
+ * write manifest.
+ */
+final class StagedFileWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagedFileWriter.class);
+
+    private static final String MANIFEST_FILE_NAME = "adk-write-manifest";
+
+    /**
+     * What publishing did to a file.
+     */
+    enum Change {
+        CREATED, MODIFIED, UNCHANGED
+    }
+
+    private final Path baseDir;
+    private final Path stagingDir;
+    private final Map<Path, Path> staged = new ConcurrentHashMap<>();
+    private final List<Path> order = new ArrayList<>();
+    private final AtomicInteger counter = new AtomicInteger();
+
+    StagedFileWriter(Path baseDir) throws IOException {
+        this.baseDir = baseDir.toAbsolutePath().normalize();
+        Path stagingRoot = Files.createDirectories(manifestFile(this.baseDir).getParent());
+        this.stagingDir = Files.createTempDirectory(stagingRoot, ".adk-staging-");
+    }
+
+    /**
+     * Writes one file outside a generation pass (the pom, the README, configuration, a rule-based fix) atomically and
+     * records it in the manifest, so it is committed along with the generated sources.
+     *
+     * @return what the write did to the file.
+     */
+    static Change writeFile(Path target, String content) throws IOException {
+        Path file = target.toAbsolutePath().normalize();
+        Files.createDirectories(file.getParent());
+        StagedFileWriter writer = new StagedFileWriter(file.getParent());
+        writer.write(file, content);
+        return writer.commit().get(file);
+    }
+
+    /**
+     * Appends to one file in place and records it in the manifest. The cost is the size of the appended content, not of
+     * the file, but the append is not atomic: a crash can leave part of it behind, so only files whose readers skip an
+     * incomplete tail (append-only logs) should be written this way.
+     *
+     * @return what the append did to the file.
+     */
+    static Change appendToFile(Path target, String content) throws IOException {
+        Path file = target.toAbsolutePath().normalize();
+        Files.createDirectories(file.getParent());
+        Change change = Files.exists(file) ? Change.MODIFIED : Change.CREATED;
+        Files.writeString(file, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        appendToManifest(file.getParent(), Map.of(file, change));
+        return change;
+    }
+
+    /**
+     * Whether the file exists, either staged in this transaction or on disk.
+     */
+    boolean exists(Path target) {
+        return staged.containsKey(normalize(target)) || Files.exists(target);
+    }
+
+    /**
+     * Reads the file as this transaction sees it: the staged content if it was written, otherwise the disk content.
+     */
+    String read(Path target) throws IOException {
+        Path stagedFile = staged.get(normalize(target));
+        return Files.readString(stagedFile != null ? stagedFile : target, StandardCharsets.UTF_8);
+    }
+
+    void write(Path target, String content) throws IOException {
+        Path key = normalize(target);
+        Path stagedFile = staged.computeIfAbsent(key, k -> {
+            synchronized (order) {
+                order.add(k);
+            }
+            return stagingDir.resolve(counter.incrementAndGet() + ".staged");
+        });
+        Files.writeString(stagedFile, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Publishes every staged file into the project and records the changes in the manifest. If a move fails, the
+     * files published before it are still recorded, so they are committed with the rest of the run.
+     *
+     * @return the change made to each staged file, in the order the files were first written.
+     */
+    Map<Path, Change> commit() throws IOException {
+        Map<Path, Change> changes = new LinkedHashMap<>();
+        try {
+            List<Path> targets;
+            synchronized (order) {
+                targets = new ArrayList<>(order);
+            }
+            for (Path target : targets) {
+                Path stagedFile = staged.get(target);
+                Change change;
+                if (!Files.exists(target)) {
+                    change = Change.CREATED;
+                } else if (Arrays.equals(Files.readAllBytes(target), Files.readAllBytes(stagedFile))) {
+                    change = Change.UNCHANGED;
+                } else {
+                    change = Change.MODIFIED;
+                }
+                if (change != Change.UNCHANGED) {
+                    Files.createDirectories(target.getParent());
+                    move(stagedFile, target);
+                }
+                changes.put(target, change);
+            }
+            long unchanged = changes.values().stream().filter(Change.UNCHANGED::equals).count();
+            logger.info("✅ Published {} staged files ({} unchanged and skipped).", changes.size() - unchanged, unchanged);
+            return changes;
+        } finally {
+            try {
+                appendToManifest(baseDir, changes);
+            } finally {
+                deleteStagingDir();
+            }
+        }
+    }
+
+    /**
+     * Discards everything staged in this transaction.
+     */
+    void rollback() {
+        logger.warn("⚠️ Discarding {} staged files; the project was left unchanged.", staged.size());
+        deleteStagingDir();
+    }
+
+    /**
+     * Returns the paths of every file created or modified since the manifest was last reset, relative to the root of
+     * the enclosing working tree (or to the project, if it is not in one).
+     */
+    static List<String> readManifest(Path baseDir) {
+        Path manifest = manifestFile(baseDir);
+        List<String> paths = new ArrayList<>();
+        if (!Files.exists(manifest)) {
+            return paths;
+        }
+        try {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", 2);
+                if (parts.length == 2 && !paths.contains(parts[1])) {
+                    paths.add(parts[1]);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not read write manifest: {}", e.getMessage());
+        }
+        return paths;
+    }
+
+    /**
+     * Starts a new, empty manifest for a run.
+     */
+    static void resetManifest(Path baseDir) {
+        try {
+            Files.deleteIfExists(manifestFile(baseDir));
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not reset write manifest: {}", e.getMessage());
+        }
+    }
+
+    private static void appendToManifest(Path baseDir, Map<Path, Change> changes) throws IOException {
+        StringBuilder entries = new StringBuilder();
+        for (Map.Entry<Path, Change> entry : changes.entrySet()) {
+            if (entry.getValue() != Change.UNCHANGED) {
+                String relative = manifestRoot(baseDir).relativize(entry.getKey()).toString().replace('\\', '/');
+                entries.append(entry.getValue()).append('\t').append(relative).append('\n');
+            }
+        }
+        if (entries.length() > 0) {
+            Path manifest = manifestFile(baseDir);
+            Files.createDirectories(manifest.getParent());
+            Files.writeString(manifest, entries, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * The manifest lives inside .git so it is never committed; projects without a .git directory keep it next door.
+     * A project inside a working tree (a service in a monorepo) shares the manifest of that working tree.
+     */
+    private static Path manifestFile(Path baseDir) {
+        Path absolute = baseDir.toAbsolutePath().normalize();
+        Path workTree = enclosingWorkTree(absolute);
+        if (workTree != null || absolute.getParent() == null) {
+            return gitDir(workTree != null ? workTree : absolute).resolve(MANIFEST_FILE_NAME);
+        }
+        return absolute.getParent().resolve("." + absolute.getFileName() + "-" + MANIFEST_FILE_NAME);
+    }
+
+    private static Path manifestRoot(Path baseDir) {
+        Path absolute = baseDir.toAbsolutePath().normalize();
+        Path workTree = enclosingWorkTree(absolute);
+        return workTree != null ? workTree : absolute;
+    }
+
+    private static Path enclosingWorkTree(Path absolute) {
+        for (Path dir = absolute; dir != null; dir = dir.getParent()) {
+            if (Files.exists(dir.resolve(".git"))) {
+                return dir;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The git directory of a working tree; in a linked worktree ".git" is a file pointing at it.
+     */
+    private static Path gitDir(Path workTree) {
+        Path dotGit = workTree.resolve(".git");
+        if (Files.isRegularFile(dotGit)) {
+            try {
+                String pointer = Files.readString(dotGit, StandardCharsets.UTF_8).trim();
+                if (pointer.startsWith("gitdir:")) {
+                    return workTree.resolve(pointer.substring("gitdir:".length()).trim()).normalize();
+                }
+            } catch (IOException e) {
+                logger.warn("⚠️ Could not read {}: {}", dotGit, e.getMessage());
+            }
+        }
+        return dotGit;
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path normalize(Path target) {
+        return target.toAbsolutePath().normalize();
+    }
+
+    private void deleteStagingDir() {
+        if (!Files.exists(stagingDir)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(stagingDir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete staging file {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not clean up staging directory {}: {}", stagingDir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A durable queue of committed feature branches waiting to be pushed and, for successful runs, turned into pull
+ * requests.
+ * <p>
+ * A run ends once its commit exists locally: it records a submission here and leaves the network work to a
+ * background worker. Each submission is a properties file in {@code ../temp/.outbox} that records which step is next
+ * (push, then pull request), so a crash or a failed attempt resumes where it stopped. Failed attempts are retried with
+ * exponential backoff; the worker a run starts keeps retrying for {@link #MAX_IN_PROCESS_WAIT}, after which the
+ * service mode ({@code --prefetch}) or the next run's worker picks the submission up again. A submission that fails
+ * {@link #MAX_ATTEMPTS} times, that GitHub rejects outright, or whose file cannot be read, is moved to {@code failed/}
+ * for a person to look at.
+ */
+final class SubmissionOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionOutbox.class);
+
+    static final String OUTBOX_DIR_NAME = ".outbox";
+    private static final String FAILED_DIR_NAME = "failed";
+    private static final String ENTRY_SUFFIX = ".properties";
+    private static final String DRAIN_LOCK_FILE = "drain.lock";
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final Duration MAX_IN_PROCESS_WAIT = Duration.ofMinutes(2);
+    private static final Duration SERVICE_INTERVAL = Duration.ofMinutes(1);
+    // How long to wait before looking again while another thread or process holds the drain lock.
+    private static final Duration BUSY_RETRY = Duration.ofSeconds(5);
+    private static final int MAX_ATTEMPTS = 10;
+
+    private static final String STAGE_PUSH = "PUSH";
+    private static final String STAGE_PULL_REQUEST = "PULL_REQUEST";
+
+    private final Path directory;
+    private final GitHubClient gitHub;
+    private final Duration initialBackoff;
+
+    SubmissionOutbox(Path directory, GitHubClient gitHub, Duration initialBackoff) {
+        this.directory = directory;
+        this.gitHub = gitHub;
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * The outbox shared by every run that caches its clones in {@code cacheDir}.
+     */
+    static SubmissionOutbox in(Path cacheDir) {
+        return new SubmissionOutbox(cacheDir.resolve(OUTBOX_DIR_NAME), GitHubClient.fromEnvironment(), INITIAL_BACKOFF);
+    }
+
+    /**
+     * Records that {@code branch}, already committed in {@code workTree}, is to be pushed and, if
+     * {@code pullRequestTitle} is not null, proposed for merging into {@code baseBranch}.
+     */
+    void enqueue(Path workTree, String repoUrl, String baseBranch, String branch, String pullRequestTitle, String pullRequestBody) throws IOException {
+        Files.createDirectories(directory);
+        Properties entry = new Properties();
+        entry.setProperty("workTree", workTree.toAbsolutePath().normalize().toString());
+        entry.setProperty("repoUrl", repoUrl);
+        entry.setProperty("baseBranch", baseBranch);
+        entry.setProperty("branch", branch);
+        if (pullRequestTitle != null) {
+            entry.setProperty("title", pullRequestTitle);
+            entry.setProperty("body", pullRequestBody);
+        }
+        entry.setProperty("stage", STAGE_PUSH);
+        entry.setProperty("attempts", "0");
+        entry.setProperty("nextAttempt", Instant.now().toString());
+        Path file = directory.resolve(System.currentTimeMillis() + "-" + branch.replaceAll("[^A-Za-z0-9._-]", "_") + ENTRY_SUFFIX);
+        store(file, entry);
+        logger.info("📮 Queued {} for submission.", branch);
+    }
+
+    /**
+     * Drains the outbox on a background thread until it is empty or its next retry is more than
+     * {@link #MAX_IN_PROCESS_WAIT} away. The thread is not a daemon, so the process waits for submissions in flight.
+     *
+     * @param onPullRequest receives the URL of each pull request the worker creates.
+     */
+    void startWorker(Consumer<String> onPullRequest) {
+        Thread worker = new Thread(() -> {
+            try {
+                Duration wait;
+                while ((wait = drain(onPullRequest)) != null && wait.compareTo(MAX_IN_PROCESS_WAIT) <= 0) {
+                    Thread.sleep(wait.toMillis());
+                }
+                if (wait != null) {
+                    logger.info("Pending submissions will be retried by the next run or the --prefetch service.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "submission-outbox");
+        worker.setDaemon(false);
+        worker.start();
+    }
+
+    /**
+     * Drains the outbox every minute until the process is stopped.
+     */
+    void startService() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "submission-outbox"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                drain(url -> { });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // An exception escaping the task would cancel the schedule for good.
+                logger.error("❌ Draining the submission outbox failed: {}", e.getMessage(), e);
+            }
+        }, 0, SERVICE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Makes one attempt at every submission that is due. Only one process drains the outbox at a time; if another
+     * one is draining, this returns without doing anything, and the returned wait is at least {@link #BUSY_RETRY}.
+     *
+     * @return the time until the next pending submission is due, or null if none is left.
+     */
+    Duration drain(Consumer<String> onPullRequest) throws InterruptedException {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not open the submission outbox {}: {}", directory, e.getMessage());
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(DRAIN_LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                // Due entries stay due until the other drainer gets to them; waiting zero would spin on the lock.
+                Duration wait = untilNextDue();
+                return wait != null && wait.compareTo(BUSY_RETRY) < 0 ? BUSY_RETRY : wait;
+            }
+            try {
+                for (Path file : entries()) {
+                    try {
+                        process(file, onPullRequest);
+                    } catch (RuntimeException e) {
+                        // A malformed or hand-edited entry must not stop the submissions behind it.
+                        quarantine(file, e);
+                    }
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not drain the submission outbox: {}", e.getMessage());
+        }
+        return untilNextDue();
+    }
+
+    private void process(Path file, Consumer<String> onPullRequest) throws IOException, InterruptedException {
+        Properties entry = load(file);
+        if (Instant.parse(entry.getProperty("nextAttempt")).isAfter(Instant.now())) {
+            return;
+        }
+        String branch = entry.getProperty("branch");
+        try {
+            if (STAGE_PUSH.equals(entry.getProperty("stage"))) {
+                logger.info("Pushing changes to origin/{}", branch);
+                GitRepository.open(Path.of(entry.getProperty("workTree"))).push(branch);
+                logger.info("🚀 Pushed {} to GitHub.", branch);
+                if (entry.getProperty("title") == null) {
+                    Files.delete(file);
+                    return;
+                }
+                // The push is done; a later failure only repeats the pull request.
+                entry.setProperty("stage", STAGE_PULL_REQUEST);
+                entry.setProperty("attempts", "0");
+                store(file, entry);
+            }
+            logger.info("🤖 Creating a pull request for {}...", branch);
+            String url = gitHub.createPullRequest(entry.getProperty("repoUrl"), entry.getProperty("baseBranch"), branch,
+                    entry.getProperty("title"), entry.getProperty("body"));
+            logger.info("✅ Successfully created Pull Request: {}", url);
+            Files.delete(file);
+            onPullRequest.accept(url);
+        } catch (IOException e) {
+            int attempts = Integer.parseInt(entry.getProperty("attempts")) + 1;
+            boolean permanent = e instanceof GitHubClient.RequestException && !((GitHubClient.RequestException) e).isRetryable();
+            String step = STAGE_PUSH.equals(entry.getProperty("stage")) ? "Push" : "Pull request creation";
+            if (permanent || attempts >= MAX_ATTEMPTS) {
+                Path failedDir = Files.createDirectories(directory.resolve(FAILED_DIR_NAME));
+                entry.setProperty("lastError", e.getMessage());
+                store(file, entry);
+                Files.move(file, failedDir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                logger.error("❌ {} for {} failed after {} attempt(s): {}", step, branch, attempts, e.getMessage());
+                logger.error("  - The submission was moved to {}. Fix the cause and move it back to retry.", failedDir);
+                return;
+            }
+            Duration backoff = backoff(attempts);
+            entry.setProperty("attempts", Integer.toString(attempts));
+            entry.setProperty("nextAttempt", Instant.now().plus(backoff).toString());
+            entry.setProperty("lastError", e.getMessage());
+            store(file, entry);
+            logger.warn("⚠️ {} for {} failed (attempt {} of {}); retrying in {}s: {}", step, branch, attempts, MAX_ATTEMPTS,
+                    backoff.toSeconds(), e.getMessage());
+        }
+    }
+
+    private void quarantine(Path file, RuntimeException cause) {
+        try {
+            Path failedDir = Files.createDirectories(directory.resolve(FAILED_DIR_NAME));
+            Files.move(file, failedDir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            logger.error("❌ Submission {} could not be processed and was moved to {}: {}", file.getFileName(), failedDir, cause.toString());
+        } catch (IOException e) {
+            logger.warn("⚠️ Could not move the unreadable submission {} aside: {}", file, e.getMessage());
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+    private Duration untilNextDue() {
+        Instant next = null;
+        try {
+            for (Path file : entries()) {
+                Instant due;
+                try {
+                    due = Instant.parse(load(file).getProperty("nextAttempt"));
+                } catch (RuntimeException e) {
+                    // Due now, so the next drain moves it to failed/.
+                    due = Instant.now();
+                }
+                if (next == null || due.isBefore(next)) {
+                    next = due;
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        if (next == null) {
+            return null;
+        }
+        Duration wait = Duration.between(Instant.now(), next);
+        return wait.isNegative() ? Duration.ZERO : wait;
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties entry = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            entry.load(in);
+        }
+        return entry;
+    }
+
+    /**
+     * Writes the entry to a temporary file and moves it into place, so a crash never leaves a half-written entry.
+     */
+    private static void store(Path file, Properties entry) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            entry.store(out, null);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
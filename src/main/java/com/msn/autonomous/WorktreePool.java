@@ -0,0 +1,317 @@
+package com.msn.autonomous;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of pre-created git worktrees per repository, so a run starts in a clean checkout of the base branch without
+ * a fetch-reset-clean cycle on its critical path.
+ * <p>
+ * The pool lives next to the repository's primary clone, in {@code <clone>.worktrees/}. Worktrees share the clone's
+ * objects and refs, so each one costs only its checkout. A run leases a worktree by holding a file lock on it until
+ * the process exits, so concurrent runs on the same repository never share a working tree. Worktrees are detached at
+ * {@code origin/<baseBranch>}; the run creates its feature branch there.
+ * <p>
+ * Every lease starts a background pass that fetches once (unless a prefetch just did) and brings each idle worktree
+ * that is not ready, including those left behind by earlier runs, back to a clean checkout of the base branch, then
+ * tops the pool up to its size. A worktree recycled less than {@link #MAX_READY_AGE} ago is ready: it is leased as it
+ * is and left alone by the pass. An older one is reset before it is handed out.
+ * The pool size is {@code ADK_WORKTREE_POOL} (default 2); 0 disables the pool and runs use the primary clone.
+ */
+final class WorktreePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorktreePool.class);
+
+    static final String ENV_POOL_SIZE = "ADK_WORKTREE_POOL";
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private static final Duration MAX_READY_AGE = Duration.ofMinutes(15);
+    private static final String WORKTREE_PREFIX = "wt-";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String READY_SUFFIX = ".ready";
+    private static final String POOL_LOCK_FILE = "pool.lock";
+
+    // The leases held by this process. Their locks are released by the operating system when it exits.
+    private static final Map<Path, FileLock> leases = new ConcurrentHashMap<>();
+    // File locks are held per process, so threads of this process (a lease and the background pass) take turns here
+    // before they take the pool lock.
+    private static final Map<Path, Object> poolMonitors = new ConcurrentHashMap<>();
+
+    private final Path primary;
+    private final Path poolDir;
+    private final String url;
+    private final String baseBranch;
+    private final String sparseScope;
+    private final int size;
+
+    private WorktreePool(Path primary, String url, String baseBranch, String sparseScope, int size) {
+        this.primary = primary.toAbsolutePath().normalize();
+        this.poolDir = this.primary.resolveSibling(this.primary.getFileName() + ".worktrees");
+        this.url = url;
+        this.baseBranch = baseBranch;
+        this.sparseScope = sparseScope;
+        this.size = size;
+    }
+
+    static int configuredSize() {
+        String configured = System.getenv(ENV_POOL_SIZE);
+        try {
+            return configured != null && !configured.isBlank() ? Math.max(0, Integer.parseInt(configured.trim())) : DEFAULT_POOL_SIZE;
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ Invalid {} value '{}'. Using {}.", ENV_POOL_SIZE, configured, DEFAULT_POOL_SIZE);
+            return DEFAULT_POOL_SIZE;
+        }
+    }
+
+    /**
+     * Leases a worktree of the repository cloned at {@code primary}, cloning it first if needed.
+     *
+     * @return the worktree, checked out at {@code origin/<baseBranch>} with nothing else in it.
+     */
+    static Path lease(Path primary, String url, String baseBranch, String sparseScope, int size) throws IOException, InterruptedException {
+        return new WorktreePool(primary, url, baseBranch, sparseScope, size).lease();
+    }
+
+    /**
+     * Returns every worktree this process leased to the pool, for a process that runs several issues in turn. The
+     * next lease's background pass recycles them. Commits on their branches stay in the shared repository, so queued
+     * submissions can still push them.
+     */
+    static void releaseLeases() {
+        for (Path worktree : leases.keySet()) {
+            FileLock lock = leases.remove(worktree);
+            if (lock == null) {
+                continue;
+            }
+            try {
+                lock.release();
+                lock.channel().close();
+            } catch (IOException e) {
+                logger.debug("Could not release worktree {}: {}", worktree.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private Path lease() throws IOException, InterruptedException {
+        Files.createDirectories(poolDir);
+        if (!Files.exists(primary)) {
+            logger.info("Cloning repository from {}", url);
+            GitRepository.cloneFrom(url, baseBranch, primary, sparseScope);
+        }
+        RepositoryPrefetcher.recordUse(primary, baseBranch);
+
+        Path leased = null;
+        for (Path worktree : worktrees()) {
+            if (isReady(worktree) && acquire(worktree)) {
+                leased = worktree;
+                logger.info("✅ Leased worktree {}, ready at origin/{}.", worktree.getFileName(), baseBranch);
+                break;
+            }
+        }
+        if (leased == null) {
+            for (Path worktree : worktrees()) {
+                if (acquire(worktree)) {
+                    logger.info("No fresh worktree is ready. Resetting {} to origin/{}.", worktree.getFileName(), baseBranch);
+                    try {
+                        RepositoryPrefetcher.fetchIfStale(GitRepository.open(primary), baseBranch);
+                        recycle(worktree);
+                        leased = worktree;
+                        break;
+                    } catch (IOException e) {
+                        logger.warn("⚠️ Could not reset worktree {}: {}", worktree.getFileName(), e.getMessage());
+                        release(worktree);
+                    }
+                }
+            }
+        }
+        if (leased == null) {
+            logger.info("Every worktree is leased. Adding one to the pool.");
+            RepositoryPrefetcher.fetchIfStale(GitRepository.open(primary), baseBranch);
+            leased = create(true);
+        }
+        // The run changes the worktree; it is recycled before it is leased again.
+        Files.deleteIfExists(readyMarker(leased));
+        maintainInBackground();
+        return leased;
+    }
+
+    /**
+     * Fetches the base branch once, recycles every idle worktree that is not ready and adds worktrees until the pool
+     * is full. The pass runs on a non-daemon thread, so it completes even if the run finishes first.
+     */
+    private void maintainInBackground() {
+        ExecutorService maintainer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "worktree-pool");
+            thread.setDaemon(false);
+            return thread;
+        });
+        maintainer.execute(() -> {
+            try {
+                RepositoryPrefetcher.fetchIfStale(GitRepository.open(primary), baseBranch);
+                List<Path> worktrees = worktrees();
+                for (Path worktree : worktrees) {
+                    if (isReady(worktree)) {
+                        // Recycled recently; resetting it again would only rewrite its checkout.
+                        continue;
+                    }
+                    FileLock lock = tryLock(worktree);
+                    if (lock != null) {
+                        try {
+                            recycle(worktree);
+                        } finally {
+                            lock.release();
+                            lock.channel().close();
+                        }
+                    }
+                }
+                for (int count = worktrees.size(); count < size; count++) {
+                    create(false);
+                }
+                logger.debug("Worktree pool for {} is up to date.", primary.getFileName());
+            } catch (IOException e) {
+                logger.warn("⚠️ Could not refresh the worktree pool for {}: {}", primary.getFileName(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        maintainer.shutdown();
+    }
+
+    /**
+     * Brings a worktree whose lock is held back to a clean checkout of the last fetched base branch.
+     */
+    private void recycle(Path worktree) throws IOException, InterruptedException {
+        GitRepository repository = GitRepository.open(worktree);
+        repository.setSparseScope(sparseScope);
+        repository.checkoutRemote(baseBranch);
+        Files.writeString(readyMarker(worktree), Instant.now().toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds a worktree at the first free slot, checked out at the last fetched base branch.
+     *
+     * @param leased whether to lease the new worktree to this run, or leave it ready for the next one.
+     */
+    private Path create(boolean leased) throws IOException, InterruptedException {
+        // Slots are numbered under a pool-wide lock so concurrent runs never pick the same one.
+        synchronized (poolMonitors.computeIfAbsent(poolDir, dir -> new Object())) {
+            try (FileChannel channel = FileChannel.open(poolDir.resolve(POOL_LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock poolLock = channel.lock();
+                try {
+                    return createLocked(leased);
+                } finally {
+                    poolLock.release();
+                }
+            }
+        }
+    }
+
+    private Path createLocked(boolean leased) throws IOException, InterruptedException {
+        int slot = 1;
+        while (Files.exists(poolDir.resolve(WORKTREE_PREFIX + slot))) {
+            slot++;
+        }
+        Path worktree = poolDir.resolve(WORKTREE_PREFIX + slot);
+        GitRepository.open(primary).addWorktree(worktree, baseBranch);
+        if (leased) {
+            acquire(worktree);
+            recycle(worktree);
+        } else {
+            FileLock lock = tryLock(worktree);
+            try {
+                recycle(worktree);
+            } finally {
+                if (lock != null) {
+                    lock.release();
+                    lock.channel().close();
+                }
+            }
+        }
+        logger.info("Added worktree {} to the pool for {}.", worktree.getFileName(), primary.getFileName());
+        return worktree;
+    }
+
+    private List<Path> worktrees() throws IOException {
+        try (Stream<Path> entries = Files.list(poolDir)) {
+            return entries
+                    .filter(Files::isDirectory)
+                    .filter(dir -> dir.getFileName().toString().startsWith(WORKTREE_PREFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Whether the worktree was recycled recently enough to be leased without a reset.
+     */
+    private boolean isReady(Path worktree) {
+        Path marker = readyMarker(worktree);
+        if (!Files.exists(marker)) {
+            return false;
+        }
+        try {
+            Instant recycledAt = Instant.parse(Files.readString(marker, StandardCharsets.UTF_8).trim());
+            return recycledAt.plus(MAX_READY_AGE).isAfter(Instant.now());
+        } catch (IOException | DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Takes the lease on a worktree for the rest of this process.
+     */
+    private boolean acquire(Path worktree) throws IOException {
+        FileLock lock = tryLock(worktree);
+        if (lock == null) {
+            return false;
+        }
+        leases.put(worktree, lock);
+        return true;
+    }
+
+    private void release(Path worktree) throws IOException {
+        FileLock lock = leases.remove(worktree);
+        if (lock != null) {
+            lock.release();
+            lock.channel().close();
+        }
+    }
+
+    /**
+     * @return the lock, or null if another run (or this one) holds it.
+     */
+    private FileLock tryLock(Path worktree) throws IOException {
+        FileChannel channel = FileChannel.open(poolDir.resolve(worktree.getFileName() + LOCK_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+            }
+            return lock;
+        } catch (OverlappingFileLockException e) {
+            channel.close();
+            return null;
+        }
+    }
+
+    private Path readyMarker(Path worktree) {
+        return poolDir.resolve(worktree.getFileName() + READY_SUFFIX);
+    }
+}
@@ -0,0 +1,204 @@
+package com.msn.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass tokenizer that splits an agent response into per-file blocks.
+ * <p>
+ * It understands both marker dialects used by the agents:
+ * <ul>
+ *     <li>{@code // Create File: path}, {@code // Modify File: path} and {@code // Refactored File: path},
+ *     where the block runs until the next marker</li>
+ *     <li>{@code // --- File: path ---}, followed by a fenced code block</li>
+ * </ul>
+ * The input is scanned once, line by line, so parse time is linear in the response size. Text can be supplied
+ * as a whole {@link CharSequence} via {@link #tokenize(CharSequence)} or as streamed chunks via
+ * {@link #accept(CharSequence)} and {@link #finish()}, with each block handed to the sink as soon as the next
+ * marker (or the end of input) closes it.
+ */
+public final class FileBlockTokenizer {
+
+    private static final String FENCE = "```";
+    private static final String FILE_MARKER_PREFIX = "// --- File:";
+    private static final String FILE_MARKER_SUFFIX = "---";
+
+    /**
+     * The kind of marker that opened a block.
+     */
+    public enum Action {
+        CREATE("// Create File:"),
+        MODIFY("// Modify File:"),
+        REFACTOR("// Refactored File:"),
+        FILE(FILE_MARKER_PREFIX);
+
+        private final String marker;
+
+        Action(String marker) {
+            this.marker = marker;
+        }
+    }
+
+    /**
+     * One file block: the marker's action and path, and the raw text that followed it.
+     */
+    public static final class FileBlock {
+        public final Action action;
+        public final String path;
+        public final String body;
+
+        FileBlock(Action action, String path, String body) {
+            this.action = action;
+            this.path = path;
+            this.body = body;
+        }
+
+        /**
+         * The file content: the first fenced code block of the body if there is one, otherwise the whole body,
+         * with any stray fence markers removed.
+         */
+        public String code() {
+            return stripFences(body);
+        }
+    }
+
+    private final Consumer<FileBlock> sink;
+    private final StringBuilder pendingLine = new StringBuilder();
+    private Action currentAction;
+    private String currentPath;
+    private StringBuilder currentBody;
+
+    public FileBlockTokenizer(Consumer<FileBlock> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Tokenizes a complete response.
+     */
+    public static List<FileBlock> tokenize(CharSequence text) {
+        List<FileBlock> blocks = new ArrayList<>();
+        FileBlockTokenizer tokenizer = new FileBlockTokenizer(blocks::add);
+        tokenizer.accept(text);
+        tokenizer.finish();
+        return blocks;
+    }
+
+    /**
+     * Feeds the next chunk of a streamed response. Chunks may split lines anywhere.
+     */
+    public void accept(CharSequence chunk) {
+        int length = chunk.length();
+        for (int i = 0; i < length; i++) {
+            char c = chunk.charAt(i);
+            if (c == '\n') {
+                processLine(pendingLine);
+                pendingLine.setLength(0);
+            } else {
+                pendingLine.append(c);
+            }
+        }
+    }
+
+    /**
+     * Signals the end of input and emits the last open block.
+     */
+    public void finish() {
+        if (pendingLine.length() > 0) {
+            processLine(pendingLine);
+            pendingLine.setLength(0);
+        }
+        emit();
+    }
+
+    /**
+     * Extracts the content of the first fenced code block in {@code text} (e.g. {@code ```java ... ```}).
+     * Text without a fence is returned as is. Any remaining fence markers are removed in both cases.
+     */
+    public static String stripFences(String text) {
+        int open = text.indexOf(FENCE);
+        String content = text;
+        if (open >= 0) {
+            int contentStart = text.indexOf('\n', open);
+            if (contentStart >= 0) {
+                int close = findClosingFence(text, contentStart + 1);
+                if (close >= 0) {
+                    content = text.substring(contentStart + 1, close);
+                }
+            }
+        }
+        return content.replace(FENCE + "java", "").replace(FENCE, "").trim();
+    }
+
+    private static int findClosingFence(String text, int from) {
+        int lineStart = from;
+        while (lineStart <= text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            if (text.startsWith(FENCE, firstNonBlank(text, lineStart, lineEnd))) {
+                return lineStart;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return -1;
+    }
+
+    private static int firstNonBlank(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private void processLine(StringBuilder line) {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        int start = firstNonBlank(line, 0, end);
+        if (start < end - 1 && line.charAt(start) == '/' && line.charAt(start + 1) == '/') {
+            for (Action action : Action.values()) {
+                if (regionMatches(line, start, action.marker)) {
+                    String path = line.substring(start + action.marker.length(), end).trim();
+                    if (action == Action.FILE && path.endsWith(FILE_MARKER_SUFFIX)) {
+                        path = path.substring(0, path.length() - FILE_MARKER_SUFFIX.length()).trim();
+                    }
+                    if (!path.isEmpty()) {
+                        emit();
+                        currentAction = action;
+                        currentPath = path;
+                        currentBody = new StringBuilder();
+                        return;
+                    }
+                }
+            }
+        }
+        if (currentBody != null) {
+            currentBody.append(line, 0, end).append('\n');
+        }
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String expected) {
+        if (text.length() - offset < expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(offset + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void emit() {
+        if (currentBody != null) {
+            sink.accept(new FileBlock(currentAction, currentPath, currentBody.toString().trim()));
+        }
+        currentAction = null;
+        currentPath = null;
+        currentBody = null;
+    }
+}
@@ -7,7 +7,6 @@ import com.msn.agent.MultiToolAgent_2;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 public class SpringBootTool {
 
@@ -139,18 +138,11 @@ public class SpringBootTool {
 
     private static Map<String, String> parseProjectFiles(String rawResponse) {
         Map<String, String> files = new LinkedHashMap<>();
-        // Regex to find the file path marker and the content in the following markdown block.
-        // It uses DOTALL to allow the content to span multiple lines.
-        final Pattern pattern =
-                Pattern.compile(
-                        "// --- File: (.*?) ---\\s*```(?:[a-zA-Z]*)?\\n(.*?)\\s*```", Pattern.DOTALL);
-        var matcher = pattern.matcher(rawResponse);
-
-        while (matcher.find()) {
-            String filePath = matcher.group(1).trim();
-            // The second group captures the content inside the markdown block.
-            String fileContent = matcher.group(2).trim();
-            files.put(filePath, fileContent);
+        // Each "// --- File: path ---" marker is followed by the file content in a markdown block.
+        for (FileBlockTokenizer.FileBlock block : FileBlockTokenizer.tokenize(rawResponse)) {
+            if (block.action == FileBlockTokenizer.Action.FILE && block.body.contains("```")) {
+                files.put(block.path, block.code());
+            }
         }
         return files;
     }
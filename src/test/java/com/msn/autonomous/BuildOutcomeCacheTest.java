@@ -0,0 +1,125 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class BuildOutcomeCacheTest {
+
+	private static final String COMPILATION_FAILURE = """
+			[ERROR] COMPILATION ERROR :\s
+			[ERROR] /work/shop/src/main/java/com/acme/shop/App.java:[3,5] cannot find symbol
+			[ERROR] Failed to execute goal org.apache.maven.plugins:maven-compiler-plugin:3.13.0:compile (default-compile) on project shop: Compilation failure
+			""";
+
+	@Test
+	void fingerprintsEveryInputTheBuildReads() throws Exception {
+		Path outside = Files.createTempDirectory("build-outcome-cache-test");
+		Path repository = Files.createDirectories(outside.resolve("repo/.git")).getParent();
+		Path service = repository.resolve("services/billing");
+		write(outside.resolve("pom.xml"), "<project><!-- outside the repository --></project>\n");
+		write(repository.resolve("pom.xml"), "<project><!-- root --></project>\n");
+		write(repository.resolve("services/pom.xml"), "<project><!-- services --></project>\n");
+		write(service.resolve("pom.xml"), "<project><!-- billing --></project>\n");
+		write(service.resolve("src/main/java/Billing.java"), "class Billing {}\n");
+		write(service.resolve("src/main/resources/application.yml"), "server.port: 8080\n");
+		String original = BuildOutcomeCache.fingerprint(service, "compile");
+
+		assertEquals(original, BuildOutcomeCache.fingerprint(service, "compile"));
+		assertNotEquals(original, BuildOutcomeCache.fingerprint(service, "test"));
+		String jdk = System.getProperty("java.version");
+		try {
+			System.setProperty("java.version", jdk + "-other");
+			assertNotEquals(original, BuildOutcomeCache.fingerprint(service, "compile"));
+		} finally {
+			System.setProperty("java.version", jdk);
+		}
+		assertChangesFingerprint(original, service, repository.resolve("pom.xml"));
+		assertChangesFingerprint(original, service, repository.resolve("services/pom.xml"));
+		assertChangesFingerprint(original, service, service.resolve("pom.xml"));
+		assertChangesFingerprint(original, service, service.resolve("src/main/java/Billing.java"));
+		assertChangesFingerprint(original, service, service.resolve("src/main/resources/application.yml"));
+
+		// Build output, files outside src and poms above the repository root are not inputs.
+		write(service.resolve("target/classes/Billing.class"), "compiled\n");
+		write(service.resolve("README.md"), "# Billing\n");
+		write(outside.resolve("pom.xml"), "<project><!-- changed --></project>\n");
+		assertEquals(original, BuildOutcomeCache.fingerprint(service, "compile"));
+
+		// A new file under src is an input, even if it is empty.
+		write(service.resolve("src/main/java/Empty.java"), "");
+		assertNotEquals(original, BuildOutcomeCache.fingerprint(service, "compile"));
+	}
+
+	@Test
+	void recordsPassesAndCompilationFailuresOnly() throws Exception {
+		String passed = fingerprintOfNewProject();
+		BuildOutcomeCache.record(passed, null);
+		assertTrue(BuildOutcomeCache.lookup(passed).passed);
+
+		String compileError = fingerprintOfNewProject();
+		BuildOutcomeCache.record(compileError, COMPILATION_FAILURE);
+		BuildOutcomeCache.Outcome failure = BuildOutcomeCache.lookup(compileError);
+		assertFalse(failure.passed);
+		assertEquals(COMPILATION_FAILURE, failure.buildLog);
+
+		String testFailure = fingerprintOfNewProject();
+		BuildOutcomeCache.record(testFailure, "[ERROR] Tests run: 3, Failures: 1, Errors: 0, Skipped: 0\n[INFO] BUILD FAILURE\n");
+		assertNull(BuildOutcomeCache.lookup(testFailure));
+
+		String crash = fingerprintOfNewProject();
+		BuildOutcomeCache.record(crash, COMPILATION_FAILURE + "java.lang.OutOfMemoryError: Java heap space\n");
+		assertNull(BuildOutcomeCache.lookup(crash));
+
+		assertNull(BuildOutcomeCache.lookup(fingerprintOfNewProject()));
+		assertNull(BuildOutcomeCache.lookup(null));
+	}
+
+	@Test
+	void forgetsCompilationFailuresAfterSixHours() throws Exception {
+		String fingerprint = fingerprintOfNewProject();
+		BuildOutcomeCache.record(fingerprint, COMPILATION_FAILURE);
+		Path failed = BuildOutcomeCache.cacheDir().resolve(fingerprint + ".failed");
+
+		Files.setLastModifiedTime(failed, FileTime.from(Instant.now().minus(Duration.ofHours(5).plusMinutes(50))));
+		assertFalse(BuildOutcomeCache.lookup(fingerprint).passed);
+
+		Files.setLastModifiedTime(failed, FileTime.from(Instant.now().minus(Duration.ofHours(6).plusMinutes(10))));
+		assertNull(BuildOutcomeCache.lookup(fingerprint));
+		assertFalse(Files.exists(failed));
+	}
+
+	private static void assertChangesFingerprint(String original, Path service, Path input) throws IOException {
+		String content = Files.readString(input);
+		write(input, content + " ");
+		assertNotEquals(original, BuildOutcomeCache.fingerprint(service, "compile"), input.toString());
+		write(input, content);
+		assertEquals(original, BuildOutcomeCache.fingerprint(service, "compile"), input.toString());
+	}
+
+	/**
+	 * The fingerprint of a project no earlier run has built, so outcomes recorded by earlier runs do not interfere.
+	 */
+	private static String fingerprintOfNewProject() throws IOException {
+		Path project = Files.createTempDirectory("build-outcome-cache-project");
+		Files.createDirectories(project.resolve(".git"));
+		write(project.resolve("pom.xml"), "<project><!-- " + project.getFileName() + " --></project>\n");
+		return BuildOutcomeCache.fingerprint(project, "compile");
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+
+}
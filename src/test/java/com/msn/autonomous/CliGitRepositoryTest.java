@@ -0,0 +1,166 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CliGitRepositoryTest {
+
+	@Test
+	void clonesCommitsPushesAndResetsAgainstABareRemote() throws Exception {
+		Path root = Files.createTempDirectory("git-repository-test");
+		Path remote = root.resolve("remote.git");
+		Path seed = root.resolve("seed");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(root, "clone", remote.toString(), seed.toString());
+		configureIdentity(seed);
+		Files.writeString(seed.resolve("README.md"), "v1\n");
+		git(seed, "add", ".");
+		git(seed, "commit", "-m", "initial");
+		git(seed, "push", "origin", "HEAD:main");
+
+		Path clone = root.resolve("clone");
+		GitRepository repository = CliGitRepository.cloneFrom(remote.toUri().toString(), "main", clone, null);
+		try {
+			configureIdentity(clone);
+			assertEquals("v1\n", repository.readCommitted("README.md"));
+			assertNull(repository.readCommitted("missing.txt"));
+
+			repository.createBranch("feature/test");
+			Files.createDirectories(clone.resolve("src"));
+			Files.writeString(clone.resolve("src/App.java"), "class App {}\n");
+			repository.commitPaths(List.of("src/App.java"), "feat: add app");
+			repository.push("feature/test");
+			assertEquals("class App {}\n", repository.readCommitted("src/App.java"));
+			assertEquals("feat: add app", git(remote, "log", "-1", "--format=%s", "feature/test").trim());
+
+			Files.writeString(seed.resolve("README.md"), "v2\n");
+			git(seed, "commit", "-am", "update");
+			git(seed, "push", "origin", "HEAD:main");
+			Files.writeString(clone.resolve("README.md"), "local edit\n");
+			Files.writeString(clone.resolve("untracked.txt"), "scratch\n");
+			Files.createDirectories(clone.resolve("target/classes"));
+			Files.writeString(clone.resolve("target/classes/App.class"), "compiled\n");
+
+			repository.resetToRemote("main");
+
+			assertEquals("v2\n", Files.readString(clone.resolve("README.md")));
+			assertFalse(Files.exists(clone.resolve("untracked.txt")));
+			assertFalse(Files.exists(clone.resolve("src/App.java")));
+			// Build output survives the reset so the next build is incremental.
+			assertTrue(Files.exists(clone.resolve("target/classes/App.class")));
+			assertEquals("main", git(clone, "rev-parse", "--abbrev-ref", "HEAD").trim());
+			assertEquals("v2\n", repository.readCommitted("README.md"));
+		} finally {
+			repository.close();
+		}
+	}
+
+	@Test
+	void sparseCloneChecksOutOnlyTheServiceAndTheRootFiles() throws Exception {
+		Path root = Files.createTempDirectory("git-repository-sparse-test");
+		Path remote = root.resolve("remote.git");
+		Path seed = root.resolve("seed");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(remote, "config", "uploadpack.allowFilter", "true");
+		git(root, "clone", remote.toString(), seed.toString());
+		configureIdentity(seed);
+		Files.writeString(seed.resolve("pom.xml"), "<project/>\n");
+		Files.createDirectories(seed.resolve("services/billing/src"));
+		Files.writeString(seed.resolve("services/billing/src/Billing.java"), "class Billing {}\n");
+		Files.createDirectories(seed.resolve("services/orders/src"));
+		Files.writeString(seed.resolve("services/orders/src/Orders.java"), "class Orders {}\n");
+		Files.createDirectories(seed.resolve(".ai-state/srs"));
+		Files.writeString(seed.resolve(".ai-state/srs/latest.txt"), "srs v1\n");
+		git(seed, "add", ".");
+		git(seed, "commit", "-m", "initial");
+		git(seed, "push", "origin", "HEAD:main");
+
+		Path clone = root.resolve("clone");
+		GitRepository repository = CliGitRepository.cloneFrom(remote.toUri().toString(), "main", clone, "services/billing");
+		GitRepository service = CliGitRepository.open(clone.resolve("services/billing"));
+		try {
+			assertTrue(Files.exists(clone.resolve("pom.xml")));
+			assertTrue(Files.exists(clone.resolve("services/billing/src/Billing.java")));
+			assertFalse(Files.exists(clone.resolve("services/orders")));
+			// The recorded SRS is checked out and can be committed with the service.
+			assertEquals("srs v1\n", Files.readString(clone.resolve(".ai-state/srs/latest.txt")));
+			configureIdentity(clone);
+			Files.writeString(clone.resolve(".ai-state/srs/latest.txt"), "srs v2\n");
+			Files.writeString(clone.resolve("services/billing/src/Billing.java"), "class Billing { }\n");
+			repository.commitPaths(List.of(".ai-state/srs/latest.txt", "services/billing/src/Billing.java"), "feat: update billing");
+			assertEquals("srs v2\n", repository.readCommitted(".ai-state/srs/latest.txt"));
+			assertEquals("blob:none", git(clone, "config", "remote.origin.partialclonefilter").trim());
+			assertEquals("class Billing { }\n", service.readCommitted("src/Billing.java"));
+			// Contents outside the scope are still readable; they are fetched when asked for.
+			assertEquals("class Orders {}\n", repository.readCommitted("services/orders/src/Orders.java"));
+
+			repository.setSparseScope(null);
+			assertTrue(Files.exists(clone.resolve("services/orders/src/Orders.java")));
+			repository.setSparseScope("services/orders");
+			assertFalse(Files.exists(clone.resolve("services/billing")));
+		} finally {
+			service.close();
+			repository.close();
+		}
+	}
+
+	@Test
+	void commitsOnlyTheGivenPaths() throws Exception {
+		Path root = Files.createTempDirectory("git-repository-commit-test");
+		Path remote = root.resolve("remote.git");
+		Path seed = root.resolve("seed");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(root, "clone", remote.toString(), seed.toString());
+		configureIdentity(seed);
+		Files.writeString(seed.resolve(".gitignore"), "target/\n");
+		git(seed, "add", ".");
+		git(seed, "commit", "-m", "initial");
+		git(seed, "push", "origin", "HEAD:main");
+
+		Path clone = root.resolve("clone");
+		GitRepository repository = CliGitRepository.cloneFrom(remote.toUri().toString(), "main", clone, null);
+		try {
+			configureIdentity(clone);
+			Files.createDirectories(clone.resolve("src"));
+			Files.writeString(clone.resolve("src/App.java"), "class App {}\n");
+			Files.writeString(clone.resolve("scratch.txt"), "not generated\n");
+			Files.createDirectories(clone.resolve("target"));
+			Files.writeString(clone.resolve("target/App.class"), "compiled\n");
+
+			repository.commitPaths(List.of("src/App.java", "target/App.class", "deleted.txt"), "feat: add app");
+
+			assertEquals("src/App.java\n", git(clone, "show", "--name-only", "--format=", "HEAD"));
+			assertEquals("?? scratch.txt\n", git(clone, "status", "--porcelain"));
+		} finally {
+			repository.close();
+		}
+	}
+
+	private static void configureIdentity(Path workTree) throws Exception {
+		git(workTree, "config", "user.name", "Test");
+		git(workTree, "config", "user.email", "test@example.com");
+	}
+
+	private static String git(Path directory, String... args) throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.addAll(List.of(args));
+		Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+		String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		if (process.waitFor() != 0) {
+			throw new IOException("git " + String.join(" ", args) + " failed: " + output);
+		}
+		return output;
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+
+class DependencyResolverTest {
+
+	private static final String STORY = "Orders are validated before they are saved, and the API is documented with OpenAPI.";
+
+	private static final List<String> MANAGED = List.of(
+			"org.springframework.boot:spring-boot-starter-web",
+			"org.springframework.boot:spring-boot-starter-data-jpa",
+			"org.springframework.boot:spring-boot-starter-validation",
+			"org.springframework.boot:spring-boot-starter-security",
+			"org.postgresql:postgresql",
+			"org.projectlombok:lombok");
+
+	@Test
+	void mergesExistingBaseAndRuleDependencies() throws Exception {
+		SpringBootBom bom = bom("3.5.0-resolver");
+
+		DependencyResolver.Resolution resolution = DependencyResolver.resolve(STORY,
+				List.of("org.projectlombok:lombok:1.18.30", "com.acme:shared-model:1.0"), bom);
+
+		assertTrue(resolution.isComplete(), resolution.unresolved.toString());
+		assertEquals(List.of(
+				"org.projectlombok:lombok:1.18.30",
+				"com.acme:shared-model:1.0",
+				"org.springframework.boot:spring-boot-starter-web",
+				"org.springframework.boot:spring-boot-starter-data-jpa",
+				"org.postgresql:postgresql:runtime",
+				"org.springframework.boot:spring-boot-starter-validation",
+				"org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.9"), resolution.dependencies);
+	}
+
+	@Test
+	void matchesRulesCaseInsensitivelyOnWordBoundaries() throws Exception {
+		SpringBootBom bom = bom("3.5.1-resolver");
+
+		List<String> dependencies = DependencyResolver.resolve("Users LOG IN with their SECURITY badge.", List.of(), bom).dependencies;
+		assertTrue(dependencies.contains("org.springframework.boot:spring-boot-starter-security"), dependencies.toString());
+
+		dependencies = DependencyResolver.resolve("Cachet is a supplier name.", List.of(), bom).dependencies;
+		assertEquals(4, dependencies.size(), dependencies.toString());
+	}
+
+	@Test
+	void pinsArtifactsOutsideTheBomByTheSpringBootLine() throws Exception {
+		assertEquals("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.5.0",
+				DependencyResolver.pinned("org.springdoc:springdoc-openapi-starter-webmvc-ui", "3.2.12"));
+		assertEquals("org.springdoc:springdoc-openapi-ui:1.8.0",
+				DependencyResolver.pinned("org.springdoc:springdoc-openapi-starter-webmvc-ui", "2.7.18"));
+		assertEquals("org.springdoc:springdoc-openapi-starter-webmvc-ui",
+				DependencyResolver.pinned("org.springdoc:springdoc-openapi-starter-webmvc-ui", "4.0.0"));
+		assertEquals("org.springframework.boot:spring-boot-starter-web",
+				DependencyResolver.pinned("org.springframework.boot:spring-boot-starter-web", "3.5.3"));
+
+		DependencyResolver.Resolution resolution = DependencyResolver.resolve(STORY, List.of(), bom("2.7.0-resolver"));
+		assertTrue(resolution.isComplete(), resolution.unresolved.toString());
+		assertTrue(resolution.dependencies.contains("org.springdoc:springdoc-openapi-ui:1.8.0"), resolution.dependencies.toString());
+
+		// No pin for the line: the DependencyAgent picks the version.
+		resolution = DependencyResolver.resolve(STORY, List.of(), bom("9.9.0-resolver"));
+		assertEquals(List.of("org.springdoc:springdoc-openapi-starter-webmvc-ui"), resolution.unresolved);
+	}
+
+	@Test
+	void leavesEverythingToTheAgentWithoutABom() throws Exception {
+		SpringBootBom bom = SpringBootBom.forVersion("0.0.0-resolver");
+		assertFalse(bom.isAvailable());
+
+		DependencyResolver.Resolution resolution = DependencyResolver.resolve(STORY, List.of(), bom);
+
+		assertFalse(resolution.isComplete());
+		assertEquals(resolution.dependencies.size(), resolution.unresolved.size());
+	}
+
+	@Test
+	void indexesABomDownloadedAfterAnUnavailableLookup() throws Exception {
+		String version = "0.0.1-resolver";
+		assertFalse(SpringBootBom.forVersion(version).isAvailable());
+
+		Path pom = MavenLauncher.bomPath(version);
+		Files.createDirectories(pom.getParent());
+		Files.writeString(pom, """
+				<project>
+				  <groupId>org.springframework.boot</groupId>
+				  <artifactId>spring-boot-dependencies</artifactId>
+				  <version>0.0.1-resolver</version>
+				  <properties>
+				    <postgresql.version>42.7.7</postgresql.version>
+				  </properties>
+				  <dependencyManagement>
+				    <dependencies>
+				      <dependency>
+				        <groupId>org.postgresql</groupId>
+				        <artifactId>postgresql</artifactId>
+				        <version>${postgresql.version}</version>
+				      </dependency>
+				      <dependency>
+				        <groupId>org.springframework.boot</groupId>
+				        <artifactId>spring-boot-starter-web</artifactId>
+				        <version>${project.version}</version>
+				      </dependency>
+				    </dependencies>
+				  </dependencyManagement>
+				</project>
+				""");
+
+		SpringBootBom bom = SpringBootBom.forVersion(version);
+
+		assertTrue(bom.isAvailable());
+		assertEquals("42.7.7", bom.managedVersion("org.postgresql", "postgresql"));
+		assertEquals(version, bom.managedVersion("org.springframework.boot", "spring-boot-starter-web"));
+	}
+
+	private static SpringBootBom bom(String springBootVersion) throws IOException {
+		Path index = MavenLauncher.localRepository().resolve(".adk-bom-index").resolve("spring-boot-" + springBootVersion + ".properties");
+		Files.createDirectories(index.getParent());
+		Properties managed = new Properties();
+		MANAGED.forEach(key -> managed.setProperty(key, "1.0.0"));
+		try (Writer writer = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+			managed.store(writer, null);
+		}
+		return SpringBootBom.forVersion(springBootVersion);
+	}
+
+}
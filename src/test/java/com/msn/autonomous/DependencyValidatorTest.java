@@ -0,0 +1,100 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+
+class DependencyValidatorTest {
+
+	private static final String GROUP = "com.example.validator";
+
+	@Test
+	void comparesVersionsSegmentBySegment() {
+		assertTrue(DependencyValidator.compareVersions("1.10.0", "1.9.3") > 0);
+		assertTrue(DependencyValidator.compareVersions("1.0.1", "1.0") > 0);
+		assertTrue(DependencyValidator.compareVersions("1.0", "1.0-RC1") > 0);
+		assertTrue(DependencyValidator.compareVersions("1.0-beta", "1.0-rc") < 0);
+		assertEquals(0, DependencyValidator.compareVersions("2.5.0", "2.5.0"));
+	}
+
+	@Test
+	void picksTheNearestVersionWithinTheSameMajorMinorLine() {
+		assertEquals("1.6.14", DependencyValidator.nearest("1.6.3", List.of("1.6.2", "1.6.14", "1.7.0")));
+		assertEquals("3.1.0", DependencyValidator.nearest("3.1.2", List.of("3.1.0", "3.1.2-RC1", "3.2.0")));
+		assertEquals("3.1.2-RC1", DependencyValidator.nearest("3.1.2-RC2", List.of("3.1.0", "3.1.2-RC1", "3.2.0")));
+		// Only a pre-release is known in the line.
+		assertEquals("4.0.0-M1", DependencyValidator.nearest("4.0.1", List.of("3.9.0", "4.0.0-M1")));
+		// Nothing in the line: a Boot 3 artifact is not "corrected" to a Boot 2 one.
+		assertNull(DependencyValidator.nearest("2.5.0", List.of("1.6.14", "1.6.15")));
+		assertNull(DependencyValidator.nearest("2.5.0", List.of("2.4.0", "2.50.1")));
+	}
+
+	@Test
+	void validatesAgainstTheLocalRepositoryAndTheBom() throws Exception {
+		install("widget", "1.6.14", "1.6.15");
+		install("gadget", "1.6.2", "1.6.14", "1.7.0");
+		install("gizmo", "1.0", "1.1", "1.2-RC1");
+		SpringBootBom bom = bom("0.0.0-validator", GROUP + ":managed", "4.2.0");
+
+		DependencyValidator.Result result = DependencyValidator.validate(List.of(
+				GROUP + ":widget:2.5.0",
+				GROUP + ":gadget:1.6.3",
+				GROUP + ":managed:9.9:test",
+				GROUP + ":gizmo",
+				GROUP + ":fresh:1.0",
+				GROUP + ":fresh:2.0",
+				"not a coordinate"), bom);
+
+		assertTrue(result.isValid());
+		assertEquals(List.of(
+				GROUP + ":widget:2.5.0",
+				GROUP + ":gadget:1.6.14",
+				GROUP + ":managed:test",
+				GROUP + ":gizmo:1.1",
+				GROUP + ":fresh:1.0"), result.dependencies);
+		assertEquals(3, result.corrections.size());
+		assertTrue(result.report().startsWith("## Corrected dependencies\n"));
+	}
+
+	@Test
+	void reportsAnUnversionedArtifactThatNothingKnows() throws Exception {
+		SpringBootBom bom = bom("0.0.1-validator", GROUP + ":managed", "4.2.0");
+
+		DependencyValidator.Result result = DependencyValidator.validate(List.of(GROUP + ":unknown", GROUP + ":managed"), bom);
+
+		assertFalse(result.isValid());
+		assertEquals(List.of(GROUP + ":managed"), result.dependencies);
+		assertEquals(1, result.errors.size());
+		assertTrue(result.report().startsWith("## Invalid dependencies\n\n- `" + GROUP + ":unknown` has no version"), result.report());
+	}
+
+	private static void install(String artifactId, String... versions) throws IOException {
+		for (String version : versions) {
+			Path dir = MavenLauncher.localRepository().resolve(GROUP.replace('.', '/')).resolve(artifactId).resolve(version);
+			Files.createDirectories(dir);
+			Files.writeString(dir.resolve(artifactId + "-" + version + ".pom"), "<project/>\n");
+		}
+	}
+
+	private static SpringBootBom bom(String springBootVersion, String key, String version) throws IOException {
+		Path index = MavenLauncher.localRepository().resolve(".adk-bom-index").resolve("spring-boot-" + springBootVersion + ".properties");
+		Files.createDirectories(index.getParent());
+		Properties managed = new Properties();
+		managed.setProperty(key, version);
+		try (Writer writer = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+			managed.store(writer, null);
+		}
+		return SpringBootBom.forVersion(springBootVersion);
+	}
+
+}
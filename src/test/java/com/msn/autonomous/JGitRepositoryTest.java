@@ -0,0 +1,203 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JGitRepositoryTest {
+
+	@Test
+	void branchesCommitsAndResetsInProcess() throws Exception {
+		Path root = Files.createTempDirectory("jgit-repository-test");
+		Path remote = root.resolve("remote.git");
+		Path seed = root.resolve("seed");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(root, "clone", remote.toString(), seed.toString());
+		configureIdentity(seed);
+		Files.writeString(seed.resolve("README.md"), "v1\n");
+		Files.writeString(seed.resolve(".gitignore"), "*.log\n");
+		git(seed, "add", ".");
+		git(seed, "commit", "-m", "initial");
+		git(seed, "push", "origin", "HEAD:main");
+
+		Path clone = root.resolve("clone");
+		GitRepository repository = GitRepository.cloneFrom(remote.toUri().toString(), "main", clone);
+		try {
+			assertInstanceOf(JGitRepository.class, repository);
+			configureIdentity(clone);
+			assertEquals("v1\n", repository.readCommitted("README.md"));
+			assertNull(repository.readCommitted("missing.txt"));
+
+			repository.createBranch("feature/test");
+			assertEquals("feature/test", git(clone, "rev-parse", "--abbrev-ref", "HEAD").trim());
+			assertThrows(IOException.class, () -> repository.createBranch("feature/test"));
+
+			Files.createDirectories(clone.resolve("src"));
+			Files.writeString(clone.resolve("src/App.java"), "class App {}\n");
+			Files.writeString(clone.resolve("scratch.txt"), "not generated\n");
+			Files.writeString(clone.resolve("build.log"), "ignored\n");
+			repository.commitPaths(List.of("src/App.java", "build.log", "deleted.txt"), "feat: add app");
+			assertEquals("src/App.java\n", git(clone, "show", "--name-only", "--format=", "HEAD"));
+			assertEquals("feat: add app", git(clone, "log", "-1", "--format=%s").trim());
+			assertEquals("?? scratch.txt\n", git(clone, "status", "--porcelain"));
+			assertEquals("class App {}\n", repository.readCommitted("src/App.java"));
+			assertThrows(IOException.class, () -> repository.commitPaths(List.of("build.log"), "chore: log"));
+
+			repository.push("feature/test");
+			assertEquals("feat: add app", git(remote, "log", "-1", "--format=%s", "feature/test").trim());
+
+			Files.writeString(seed.resolve("README.md"), "v2\n");
+			git(seed, "commit", "-am", "update");
+			git(seed, "push", "origin", "HEAD:main");
+			Files.writeString(clone.resolve("README.md"), "local edit\n");
+			Files.createDirectories(clone.resolve("target/classes"));
+			Files.writeString(clone.resolve("target/classes/App.class"), "compiled\n");
+			Files.createDirectories(clone.resolve("tools/target"));
+			Files.writeString(clone.resolve("tools/notes.txt"), "scratch\n");
+			Files.writeString(clone.resolve("tools/target/tool.jar"), "compiled\n");
+
+			repository.resetToRemote("main");
+
+			assertEquals("main", git(clone, "rev-parse", "--abbrev-ref", "HEAD").trim());
+			assertEquals("reset: moving to origin/main", git(clone, "reflog", "show", "main", "-1", "--format=%gs").trim());
+			assertEquals(git(clone, "rev-parse", "origin/main"), git(clone, "rev-parse", "HEAD"));
+			assertEquals("v2\n", Files.readString(clone.resolve("README.md")));
+			assertEquals("v2\n", repository.readCommitted("README.md"));
+			assertFalse(Files.exists(clone.resolve("src")));
+			assertFalse(Files.exists(clone.resolve("scratch.txt")));
+			assertFalse(Files.exists(clone.resolve("build.log")));
+			assertFalse(Files.exists(clone.resolve("tools/notes.txt")));
+			// Build output survives at any depth so the next build is incremental.
+			assertTrue(Files.exists(clone.resolve("target/classes/App.class")));
+			assertTrue(Files.exists(clone.resolve("tools/target/tool.jar")));
+			// The index JGit wrote is the one git reads.
+			assertEquals("", git(clone, "status", "--porcelain", "--untracked-files=no"));
+
+			repository.checkoutRemote("main");
+			assertEquals("HEAD", git(clone, "rev-parse", "--abbrev-ref", "HEAD").trim());
+		} finally {
+			repository.close();
+		}
+	}
+
+	@Test
+	void leavesSparseCheckoutsAndMissingBlobsToTheCli() throws Exception {
+		Path root = Files.createTempDirectory("jgit-repository-sparse-test");
+		Path remote = root.resolve("remote.git");
+		Path seed = root.resolve("seed");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(remote, "config", "uploadpack.allowFilter", "true");
+		git(root, "clone", remote.toString(), seed.toString());
+		configureIdentity(seed);
+		Files.writeString(seed.resolve("pom.xml"), "<project/>\n");
+		Files.createDirectories(seed.resolve("services/billing/src"));
+		Files.writeString(seed.resolve("services/billing/src/Billing.java"), "class Billing {}\n");
+		Files.createDirectories(seed.resolve("services/orders/src"));
+		Files.writeString(seed.resolve("services/orders/src/Orders.java"), "class Orders {}\n");
+		Files.createDirectories(seed.resolve(".ai-state/srs"));
+		Files.writeString(seed.resolve(".ai-state/srs/latest.txt"), "srs v1\n");
+		git(seed, "add", ".");
+		git(seed, "commit", "-m", "initial");
+		git(seed, "push", "origin", "HEAD:main");
+
+		Path clone = root.resolve("clone");
+		GitRepository repository = GitRepository.cloneFrom(remote.toUri().toString(), "main", clone, "services/billing");
+		GitRepository service = GitRepository.open(clone.resolve("services/billing"));
+		try {
+			assertInstanceOf(JGitRepository.class, repository);
+			configureIdentity(clone);
+			assertEquals("class Billing {}\n", service.readCommitted("src/Billing.java"));
+			// Not downloaded by the blobless clone; git fetches it.
+			assertEquals("class Orders {}\n", repository.readCommitted("services/orders/src/Orders.java"));
+
+			repository.createBranch("feature/billing");
+			Files.writeString(clone.resolve(".ai-state/srs/latest.txt"), "srs v2\n");
+			Files.writeString(clone.resolve("services/billing/src/Billing.java"), "class Billing { }\n");
+			repository.commitPaths(List.of(".ai-state/srs/latest.txt", "services/billing/src/Billing.java"), "feat: update billing");
+			assertEquals(".ai-state/srs/latest.txt\nservices/billing/src/Billing.java\n", git(clone, "show", "--name-only", "--format=", "HEAD"));
+
+			Files.writeString(seed.resolve("services/orders/src/Orders.java"), "class Orders { }\n");
+			git(seed, "commit", "-am", "update orders");
+			git(seed, "push", "origin", "HEAD:main");
+			repository.resetToRemote("main");
+
+			// JGit would check out every directory, so git did.
+			assertEquals("checkout: moving from feature/billing to main", git(clone, "reflog", "-1", "--format=%gs").trim());
+			assertEquals("class Billing {}\n", Files.readString(clone.resolve("services/billing/src/Billing.java")));
+			assertFalse(Files.exists(clone.resolve("services/orders")));
+			assertEquals("class Orders { }\n", repository.readCommitted("services/orders/src/Orders.java"));
+		} finally {
+			service.close();
+			repository.close();
+		}
+	}
+
+	@Test
+	void checksOutLinkedWorktreesInProcess() throws Exception {
+		Path root = Files.createTempDirectory("jgit-repository-worktree-test");
+		Path remote = root.resolve("remote.git");
+		Path seed = root.resolve("seed");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(root, "clone", remote.toString(), seed.toString());
+		configureIdentity(seed);
+		Files.writeString(seed.resolve("README.md"), "v1\n");
+		git(seed, "add", ".");
+		git(seed, "commit", "-m", "initial");
+		git(seed, "push", "origin", "HEAD:main");
+
+		Path clone = root.resolve("clone");
+		GitRepository repository = GitRepository.cloneFrom(remote.toUri().toString(), "main", clone);
+		GitRepository worktree = repository.addWorktree(root.resolve("clone.worktrees/wt-1"), "main");
+		try {
+			assertInstanceOf(JGitRepository.class, worktree);
+			assertFalse(Files.exists(worktree.workTree().resolve("README.md")));
+			Files.writeString(seed.resolve("README.md"), "v2\n");
+			git(seed, "commit", "-am", "update");
+			git(seed, "push", "origin", "HEAD:main");
+			repository.fetch("main");
+			assertNotNull(repository.lastFetched());
+
+			worktree.checkoutRemote("main");
+
+			assertEquals("v2\n", Files.readString(worktree.workTree().resolve("README.md")));
+			assertEquals(git(clone, "rev-parse", "origin/main"), git(worktree.workTree(), "rev-parse", "HEAD"));
+			// Only "worktree add" moved HEAD through git.
+			assertEquals(1, git(worktree.workTree(), "reflog").lines().count());
+			assertEquals(1, git(clone, "reflog").lines().count());
+			assertEquals("", git(worktree.workTree(), "status", "--porcelain"));
+		} finally {
+			worktree.close();
+			repository.close();
+		}
+	}
+
+	private static void configureIdentity(Path workTree) throws Exception {
+		git(workTree, "config", "user.name", "Test");
+		git(workTree, "config", "user.email", "test@example.com");
+	}
+
+	private static String git(Path directory, String... args) throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.addAll(List.of(args));
+		Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+		String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		if (process.waitFor() != 0) {
+			throw new IOException("git " + String.join(" ", args) + " failed: " + output);
+		}
+		return output;
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class JavaSourceMergerTest {
+
+	private static final String COMMITTED = """
+			package com.acme.shop;
+
+			import java.util.List;
+
+			public class OrderService {
+
+			    private final List<String> orders;
+
+			    public OrderService(List<String> orders) {
+			        this.orders = orders;
+			    }
+
+			    public int count() {
+			        return orders.size();
+			    }
+			}
+			""";
+
+	@Test
+	void mergesASnippetOfMembersIntoTheExistingClass() {
+		String snippet = """
+				import java.util.Optional;
+
+				    public int count() {
+				        return orders.isEmpty() ? 0 : orders.size();
+				    }
+
+				    /** The first order, if any. */
+				    public Optional<String> first() {
+				        return orders.stream().findFirst();
+				    }
+				""";
+
+		assertEquals("""
+				package com.acme.shop;
+
+				import java.util.List;
+				import java.util.Optional;
+
+				public class OrderService {
+
+				    private final List<String> orders;
+
+				    public OrderService(List<String> orders) {
+				        this.orders = orders;
+				    }
+
+				    public int count() {
+				        return orders.isEmpty() ? 0 : orders.size();
+				    }
+
+				    /** The first order, if any. */
+				    public Optional<String> first() {
+				        return orders.stream().findFirst();
+				    }
+				}
+				""", JavaSourceMerger.merge(COMMITTED, COMMITTED, snippet));
+	}
+
+	@Test
+	void defersAMemberChangedOnDiskAndByTheBlock() {
+		String onDisk = COMMITTED.replace("return orders.size();", "return orders.size() + 1;");
+		String incoming = COMMITTED.replace("return orders.size();", "return orders.size() - 1;");
+
+		assertNull(JavaSourceMerger.merge(COMMITTED, onDisk, incoming));
+		// Without a change on disk the block's version wins.
+		assertEquals(incoming, JavaSourceMerger.merge(COMMITTED, COMMITTED, incoming));
+	}
+
+	@Test
+	void defersAChangedClassHeader() {
+		String incoming = COMMITTED.replace("public class OrderService {", "public class OrderService extends BaseService {");
+
+		assertNull(JavaSourceMerger.merge(COMMITTED, COMMITTED, incoming));
+	}
+
+	@Test
+	void keepsMembersTheBlockLeavesOut() {
+		String incoming = """
+				package com.acme.shop;
+
+				public class OrderService {
+
+				    public boolean isEmpty() {
+				        return count() == 0;
+				    }
+				}
+				""";
+
+		String merged = JavaSourceMerger.merge(COMMITTED, COMMITTED, incoming);
+
+		assertTrue(merged.contains("public int count() {"), merged);
+		assertTrue(merged.contains("public OrderService(List<String> orders) {"), merged);
+		assertTrue(merged.contains("private final List<String> orders;"), merged);
+		assertTrue(merged.contains("public boolean isEmpty() {"), merged);
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JiraClientTest {
+
+	@Test
+	void fetchesOnlyTheWorkflowFieldsAndSkipsUnchangedIssues() throws Exception {
+		List<String> queries = new ArrayList<>();
+		List<String> authorizations = new ArrayList<>();
+		String[] updated = {"2024-05-01T10:00:00.000+0000"};
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/rest/api/2/issue/SHOP-1", exchange -> {
+			queries.add(exchange.getRequestURI().getQuery());
+			authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+			respond(exchange, 200, "{\"key\":\"SHOP-1\",\"fields\":{\"summary\":\"Orders API\","
+					+ "\"description\":\"GitHub-URL: https://github.com/acme/shop.git\",\"updated\":\"" + updated[0] + "\"}}");
+		});
+		server.start();
+		try {
+			String jiraUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+			JiraClient client = new JiraClient(jiraUrl, "me@example.com", "secret");
+			JiraIssueCache cache = new JiraIssueCache(Files.createTempDirectory("issue-cache-test"));
+
+			JiraClient.Issue issue = client.fetchIssue("SHOP-1");
+			assertEquals("fields=summary,description,updated", queries.get(0));
+			assertEquals("Basic bWVAZXhhbXBsZS5jb206c2VjcmV0", authorizations.get(0));
+			assertEquals("Feature: Orders API\n\nGitHub-URL: https://github.com/acme/shop.git", issue.srsContent());
+			assertFalse(cache.isUnchanged(jiraUrl, issue));
+
+			cache.record(jiraUrl, issue);
+			assertTrue(cache.isUnchanged(jiraUrl, client.fetchIssue("SHOP-1")));
+
+			updated[0] = "2024-05-02T09:30:00.000+0000";
+			assertFalse(cache.isUnchanged(jiraUrl, client.fetchIssue("SHOP-1")));
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void pagesThroughSearchResultsByToken() throws Exception {
+		List<String> queries = new ArrayList<>();
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/rest/api/2/search/jql", exchange -> {
+			String query = exchange.getRequestURI().getRawQuery();
+			queries.add(query);
+			if (!query.contains("nextPageToken=")) {
+				respond(exchange, 200, "{\"issues\":[" + issueJson(1) + "," + issueJson(2) + "],\"nextPageToken\":\"page 2\"}");
+			} else {
+				respond(exchange, 200, "{\"issues\":[" + issueJson(3) + "],\"isLast\":true}");
+			}
+		});
+		server.start();
+		try {
+			JiraClient client = new JiraClient("http://127.0.0.1:" + server.getAddress().getPort(), "me@example.com", "secret");
+			List<String> keys = new ArrayList<>();
+
+			int found = client.search("project = SHOP", 2, issue -> keys.add(issue.key));
+
+			assertEquals(3, found);
+			assertEquals(List.of("SHOP-1", "SHOP-2", "SHOP-3"), keys);
+			assertEquals(List.of(
+					"jql=project%20%3D%20SHOP&fields=summary%2Cdescription%2Cupdated&maxResults=2",
+					"jql=project%20%3D%20SHOP&fields=summary%2Cdescription%2Cupdated&maxResults=2&nextPageToken=page%202"), queries);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void fallsBackToOffsetPagingWithoutTheTokenPagedEndpoint() throws Exception {
+		List<String> queries = new ArrayList<>();
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		// Jira Server and Data Center have only the offset-paged endpoint.
+		server.createContext("/rest/api/2/search/jql", exchange -> respond(exchange, 404, "{}"));
+		server.createContext("/rest/api/2/search", exchange -> {
+			String query = exchange.getRequestURI().getQuery();
+			queries.add(query);
+			// The server caps pages at two issues, below the requested page size.
+			int startAt = Integer.parseInt(query.replaceAll(".*startAt=(\\d+).*", "$1"));
+			StringBuilder issues = new StringBuilder();
+			for (int i = startAt; i < Math.min(startAt + 2, 5); i++) {
+				issues.append(issues.length() > 0 ? "," : "").append(issueJson(i + 1));
+			}
+			respond(exchange, 200, "{\"startAt\":" + startAt + ",\"total\":5,\"issues\":[" + issues + "]}");
+		});
+		server.start();
+		try {
+			JiraClient client = new JiraClient("http://127.0.0.1:" + server.getAddress().getPort(), "me@example.com", "secret");
+			List<String> keys = new ArrayList<>();
+
+			int found = client.search("sprint in openSprints()", 50, issue -> keys.add(issue.key));
+
+			assertEquals(5, found);
+			assertEquals(List.of("SHOP-1", "SHOP-2", "SHOP-3", "SHOP-4", "SHOP-5"), keys);
+			assertEquals(3, queries.size());
+			assertEquals("jql=sprint in openSprints()&fields=summary,description,updated&maxResults=50&startAt=0", queries.get(0));
+			assertTrue(queries.get(2).contains("startAt=4"));
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void reportsJiraErrors() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/rest/api/2/issue/", exchange -> respond(exchange, 404, "{\"errorMessages\":[\"Issue does not exist\"]}"));
+		server.start();
+		try {
+			JiraClient client = new JiraClient("http://127.0.0.1:" + server.getAddress().getPort(), "me@example.com", "secret");
+			try {
+				client.fetchIssue("SHOP-404");
+				throw new AssertionError("Expected the 404 to fail the fetch");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains("404"));
+			}
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	private static String issueJson(int number) {
+		return "{\"key\":\"SHOP-" + number + "\",\"fields\":{\"summary\":\"Story " + number + "\",\"updated\":\"2024-05-01\"}}";
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class JiraMarkupTest {
+
+	@Test
+	void reducesWikiMarkupToCompactPlainText() {
+		String description = """
+				GitHub-URL: [https://github.com/acme/shop.git|https://github.com/acme/shop.git]
+				checkout_branch: *main*
+
+
+				h2. Requirements
+				{panel:title=Scope|borderStyle=solid}
+				* Create an order with a *customer id* and {{items}}
+				** Each item has a _quantity_
+				# See [the API guide|https://wiki.example.com/api] and ask [~accountid:5b10ac8d82e05b22cc7d4ef5]
+				{panel}
+				!mockup.png|thumbnail!
+				----
+				||Field||Type||
+				|id|[UUID|https://example.com/uuid]|
+				""";
+
+		assertEquals("""
+				GitHub-URL: https://github.com/acme/shop.git
+				checkout_branch: main
+
+				Requirements
+				- Create an order with a customer id and items
+				  - Each item has a quantity
+				- See the API guide (https://wiki.example.com/api) and ask @5b10ac8d82e05b22cc7d4ef5
+
+				Field | Type
+				id | UUID (https://example.com/uuid)""", JiraMarkup.toPlainText(description));
+	}
+
+	@Test
+	void keepsCodeBlocksVerbatim() {
+		String description = """
+				Validate input:
+				{code:java}
+				if (order.items() == null || order.total() < 0) {
+				    throw new IllegalArgumentException("*invalid*");
+				}
+				{code}
+				Then *save* it.
+				""";
+
+		assertEquals("""
+				Validate input:
+				if (order.items() == null || order.total() < 0) {
+				    throw new IllegalArgumentException("*invalid*");
+				}
+				Then save it.""", JiraMarkup.toPlainText(description));
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class PomModelTest {
+
+	private static final String POM = """
+			<?xml version="1.0" encoding="UTF-8"?>
+			<project xmlns="http://maven.apache.org/POM/4.0.0">
+			    <modelVersion>4.0.0</modelVersion>
+			    <parent>
+			        <groupId>%s</groupId>
+			        <artifactId>%s</artifactId>
+			        <version>%s</version>
+			    </parent>
+			    <artifactId>orders</artifactId>
+			    <properties>
+			        <java.version>17</java.version>
+			    </properties>
+			    <dependencies>
+			        <!-- web layer -->
+			        <dependency>
+			            <groupId>a</groupId>
+			            <artifactId>b</artifactId>
+			            <version>1.0</version>
+			        </dependency>
+			        <dependency>
+			            <groupId>org.projectlombok</groupId>
+			            <artifactId>lombok</artifactId>
+			            <optional>true</optional>
+			        </dependency>
+			    </dependencies>
+			    <build>
+			        <plugins>
+			            <plugin>
+			                <groupId>org.springframework.boot</groupId>
+			                <artifactId>spring-boot-maven-plugin</artifactId>
+			                <version>9.9</version>
+			            </plugin>
+			        </plugins>
+			    </build>
+			</project>
+			""";
+
+	private static String pom(String parentGroupId, String parentArtifactId, String parentVersion) {
+		return String.format(POM, parentGroupId, parentArtifactId, parentVersion);
+	}
+
+	@Test
+	void leavesAPomThatNeedsNoChangeByteForByteIdentical() throws Exception {
+		String source = pom("org.springframework.boot", "spring-boot-starter-parent", "3.5.3");
+		PomModel model = PomModel.parse(source);
+
+		model.setSpringBootParentVersion("3.5.3");
+		model.setProperty("java.version", "17");
+		model.merge(PomModel.Dependency.parse("a:b:1.0"));
+		model.merge(PomModel.Dependency.parse("org.projectlombok:lombok:optional"));
+
+		assertFalse(model.isModified());
+		assertEquals(source, model.write());
+		assertEquals(List.of("a:b:1.0", "org.projectlombok:lombok:optional"),
+				model.dependencies().stream().map(Object::toString).collect(Collectors.toList()));
+	}
+
+	@Test
+	void setsTheVersionOfASpringBootParent() throws Exception {
+		PomModel model = PomModel.parse(pom("org.springframework.boot", "spring-boot-starter-parent", "3.2.0"));
+
+		model.setSpringBootParentVersion("3.5.3");
+		model.setProperty("java.version", "21");
+
+		assertEquals(pom("org.springframework.boot", "spring-boot-starter-parent", "3.5.3")
+				.replace("<java.version>17<", "<java.version>21<"), model.write());
+	}
+
+	@Test
+	void leavesAnyOtherParentAlone() throws Exception {
+		String source = pom("com.acme", "platform-parent", "7.2.0");
+		PomModel model = PomModel.parse(source);
+
+		model.setSpringBootParentVersion("3.5.3");
+
+		assertEquals("com.acme:platform-parent", model.parent());
+		assertFalse(model.isModified());
+		assertEquals(source, model.write());
+	}
+
+	@Test
+	void mergesVersionScopeAndOptionalIntoDeclaredDependencies() throws Exception {
+		String source = pom("org.springframework.boot", "spring-boot-starter-parent", "3.5.3");
+		PomModel model = PomModel.parse(source);
+
+		model.merge(PomModel.Dependency.parse("a:b:2.0:test"));
+		model.merge(PomModel.Dependency.parse("org.projectlombok:lombok:1.18.30:provided"));
+
+		assertEquals(source
+				.replace("""
+						            <version>1.0</version>
+						""", """
+						            <version>2.0</version>
+						            <scope>test</scope>
+						""")
+				.replace("""
+						            <artifactId>lombok</artifactId>
+						            <optional>true</optional>
+						""", """
+						            <artifactId>lombok</artifactId>
+						            <version>1.18.30</version>
+						            <scope>provided</scope>
+						"""), model.write());
+		// The plugin's version is not a dependency's and stays as it is.
+		assertTrue(model.write().contains("<version>9.9</version>"));
+	}
+
+	@Test
+	void dropsAVersionTheListLeavesToDependencyManagement() throws Exception {
+		String source = pom("org.springframework.boot", "spring-boot-starter-parent", "3.5.3");
+		PomModel model = PomModel.parse(source);
+
+		model.merge(PomModel.Dependency.parse("a:b"));
+
+		assertTrue(model.isModified());
+		assertEquals(source.replace("""
+				            <version>1.0</version>
+				""", ""), model.write());
+		assertNull(PomModel.parse(model.write()).dependencies().iterator().next().version);
+	}
+
+	@Test
+	void addsNewDependenciesBeforeTheClosingTag() throws Exception {
+		String source = pom("org.springframework.boot", "spring-boot-starter-parent", "3.5.3");
+		PomModel model = PomModel.parse(source);
+
+		assertFalse(model.addIfAbsent(PomModel.Dependency.parse("a:b:3.0")));
+		model.merge(PomModel.Dependency.parse("org.postgresql:postgresql:runtime"));
+		model.enforce(PomModel.Dependency.parse("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.5.0"));
+
+		assertEquals(source.replace("""
+				    </dependencies>
+				""", """
+				        <dependency>
+				            <groupId>org.postgresql</groupId>
+				            <artifactId>postgresql</artifactId>
+				            <scope>runtime</scope>
+				        </dependency>
+				        <dependency>
+				            <groupId>org.springdoc</groupId>
+				            <artifactId>springdoc-openapi-starter-webmvc-ui</artifactId>
+				            <version>2.5.0</version>
+				        </dependency>
+				    </dependencies>
+				"""), model.write());
+	}
+
+	@Test
+	void readsManagedDependenciesSeparately() throws Exception {
+		PomModel bom = PomModel.parse("""
+				<project>
+				  <dependencyManagement>
+				    <dependencies>
+				      <dependency>
+				        <groupId>org.slf4j</groupId>
+				        <artifactId>slf4j-api</artifactId>
+				        <version>2.0.13</version>
+				      </dependency>
+				    </dependencies>
+				  </dependencyManagement>
+				</project>
+				""");
+
+		assertTrue(bom.dependencies().isEmpty());
+		assertNull(bom.parent());
+		assertEquals("org.slf4j:slf4j-api:2.0.13", bom.managedDependencies().get(0).toString());
+	}
+
+}
@@ -0,0 +1,316 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RuleBasedFixersTest {
+
+	@Test
+	void parsesEachDiagnosticOnceFromTheCompilerOutputAndTheFailureSummary() {
+		String log = """
+				[INFO] --- compiler:3.13.0:compile (default-compile) @ shop ---
+				[INFO] Compiling 12 source files with javac [debug release 21] to target/classes
+				[INFO] -------------------------------------------------------------
+				[ERROR] COMPILATION ERROR :\s
+				[INFO] -------------------------------------------------------------
+				[ERROR] /work/shop/src/main/java/com/acme/shop/OrderService.java:[14,13] cannot find symbol
+				  symbol:   class Order
+				  location: class com.acme.shop.OrderService
+				[ERROR] /work/shop/src/main/java/com/acme/shop/model/Order.java:[3,24] package javax.persistence does not exist
+				[INFO] 2 errors
+				[INFO] -------------------------------------------------------------
+				[INFO] BUILD FAILURE
+				[ERROR] Failed to execute goal org.apache.maven.plugins:maven-compiler-plugin:3.13.0:compile (default-compile) on project shop: Compilation failure: Compilation failure:\s
+				[ERROR] /work/shop/src/main/java/com/acme/shop/OrderService.java:[14,13] cannot find symbol
+				[ERROR]   symbol:   class Order
+				[ERROR]   location: class com.acme.shop.OrderService
+				[ERROR] /work/shop/src/main/java/com/acme/shop/model/Order.java:[3,24] package javax.persistence does not exist
+				[ERROR] -> [Help 1]
+				""";
+
+		List<RuleBasedFixers.Diagnostic> diagnostics = RuleBasedFixers.parseDiagnostics(log);
+
+		assertEquals(2, diagnostics.size());
+		RuleBasedFixers.Diagnostic missing = diagnostics.get(0);
+		assertEquals(Paths.get("/work/shop/src/main/java/com/acme/shop/OrderService.java"), missing.file);
+		assertEquals(14, missing.line);
+		assertEquals(13, missing.column);
+		assertTrue(missing.isMissingSymbol("class"));
+		assertEquals("Order", missing.symbol);
+		assertEquals("class com.acme.shop.OrderService", missing.location);
+		RuleBasedFixers.Diagnostic javax = diagnostics.get(1);
+		assertEquals("package javax.persistence does not exist", javax.message);
+		assertNull(javax.symbol);
+		assertEquals(List.of(), RuleBasedFixers.parseDiagnostics("[INFO] BUILD SUCCESS\n"));
+		assertEquals(List.of(), RuleBasedFixers.parseDiagnostics(null));
+	}
+
+	@Test
+	void addsAnImportAfterTheLastImportOrThePackage() {
+		assertEquals("""
+				package com.acme;
+
+				import java.util.List;
+				import java.util.Map;
+
+				class A {}
+				""", RuleBasedFixers.addImport("""
+				package com.acme;
+
+				import java.util.List;
+
+				class A {}
+				""", "java.util.Map"));
+		assertEquals("""
+				package com.acme;
+
+				import java.util.Map;
+
+				class A {}
+				""", RuleBasedFixers.addImport("""
+				package com.acme;
+
+				class A {}
+				""", "java.util.Map"));
+		assertEquals("import java.util.Map;\nclass A {}\n", RuleBasedFixers.addImport("class A {}\n", "java.util.Map"));
+		String imported = "package com.acme;\n\nimport java.util.Map;\n\nclass A {}\n";
+		assertEquals(imported, RuleBasedFixers.addImport(imported, "java.util.Map"));
+	}
+
+	@Test
+	void annotatesTheTypeDeclarationKeepingItsIndentation() {
+		String source = """
+				package com.acme;
+
+				/** Orders. */
+				public final class Order {
+				    static class OrderLine {}
+				}
+				""";
+
+		assertEquals(source.replace("public final class Order {", "@Getter\npublic final class Order {"),
+				RuleBasedFixers.annotateType(source, "Order", "@Getter"));
+		assertEquals(source.replace("    static class OrderLine {}", "    @Builder\n    static class OrderLine {}"),
+				RuleBasedFixers.annotateType(source, "OrderLine", "@Builder"));
+		assertEquals(source, RuleBasedFixers.annotateType(source, "Ord", "@Getter"));
+	}
+
+	@Test
+	void movesReportedFilesToTheirDirectorysPackageAndUpdatesImports() throws Exception {
+		Path root = project(false);
+		write(root, "src/main/java/com/acme/shop/model/Order.java", """
+				package com.acme.shop;
+
+				public class Order {
+				    private OrderStatus status;
+				}
+				""");
+		write(root, "src/main/java/com/acme/shop/model/OrderStatus.java", "package com.acme.shop.model;\n\npublic enum OrderStatus { OPEN }\n");
+		write(root, "src/main/java/com/acme/shop/web/OrderController.java", """
+				package com.acme.shop.web;
+
+				import com.acme.shop.Order;
+
+				class OrderController {}
+				""");
+		// Misplaced too, but the compiler did not complain about it.
+		String invoice = "package com.acme.shop.invoices;\n\npublic class Invoice {}\n";
+		write(root, "src/main/java/com/acme/shop/billing/Invoice.java", invoice);
+		String log = """
+				[ERROR] {root}/src/main/java/com/acme/shop/model/Order.java:[4,13] cannot find symbol
+				  symbol:   class OrderStatus
+				  location: class com.acme.shop.Order
+				""".replace("{root}", root.toString());
+
+		List<String> changes = new RuleBasedFixers().with(new RuleBasedFixers.PackageDeclarationFixer()).apply(log, root);
+
+		assertEquals(2, changes.size(), changes.toString());
+		assertTrue(read(root, "src/main/java/com/acme/shop/model/Order.java").startsWith("package com.acme.shop.model;\n"));
+		assertTrue(read(root, "src/main/java/com/acme/shop/web/OrderController.java").contains("import com.acme.shop.model.Order;"));
+		assertEquals(invoice, read(root, "src/main/java/com/acme/shop/billing/Invoice.java"));
+	}
+
+	@Test
+	void replacesJavaxNamespacesThatMovedToJakarta() throws Exception {
+		Path root = project(false);
+		write(root, "src/main/java/com/acme/shop/model/Order.java", """
+				package com.acme.shop.model;
+
+				import javax.annotation.processing.Generated;
+				import javax.persistence.Entity;
+				import javax.validation.constraints.NotNull;
+
+				@Entity
+				public class Order {}
+				""");
+		String log = """
+				[ERROR] {root}/src/main/java/com/acme/shop/model/Order.java:[3,33] package javax.annotation.processing does not exist
+				[ERROR] {root}/src/main/java/com/acme/shop/model/Order.java:[4,24] package javax.persistence does not exist
+				[ERROR] {root}/src/main/java/com/acme/shop/model/Order.java:[5,35] package javax.validation.constraints does not exist
+				""".replace("{root}", root.toString());
+
+		List<String> changes = new RuleBasedFixers().with(new RuleBasedFixers.JakartaNamespaceFixer()).apply(log, root);
+
+		assertEquals(1, changes.size(), changes.toString());
+		String source = read(root, "src/main/java/com/acme/shop/model/Order.java");
+		assertTrue(source.contains("import jakarta.persistence.Entity;"), source);
+		assertTrue(source.contains("import jakarta.validation.constraints.NotNull;"), source);
+		// Still part of the JDK.
+		assertTrue(source.contains("import javax.annotation.processing.Generated;"), source);
+	}
+
+	@Test
+	void importsTypesThatExistOnceInTheProject() throws Exception {
+		Path root = project(false);
+		write(root, "src/main/java/com/acme/shop/model/Order.java", "package com.acme.shop.model;\n\npublic class Order {}\n");
+		write(root, "src/main/java/com/acme/shop/model/Status.java", "package com.acme.shop.model;\n\npublic enum Status { ACTIVE }\n");
+		write(root, "src/main/java/com/acme/shop/model/Money.java", "package com.acme.shop.model;\n\npublic class Money {}\n");
+		write(root, "src/main/java/com/acme/shop/billing/Money.java", "package com.acme.shop.billing;\n\npublic class Money {}\n");
+		write(root, "src/main/java/com/acme/shop/OrderService.java", """
+				package com.acme.shop;
+
+				import java.util.List;
+
+				class OrderService {
+				    List<Order> orders;
+				    Status status = Status.ACTIVE;
+				    Money total;
+				}
+				""");
+		String log = """
+				[ERROR] {root}/src/main/java/com/acme/shop/OrderService.java:[6,10] cannot find symbol
+				  symbol:   class Order
+				  location: class com.acme.shop.OrderService
+				[ERROR] {root}/src/main/java/com/acme/shop/OrderService.java:[7,21] cannot find symbol
+				  symbol:   variable Status
+				  location: class com.acme.shop.OrderService
+				[ERROR] {root}/src/main/java/com/acme/shop/OrderService.java:[8,5] cannot find symbol
+				  symbol:   class Money
+				  location: class com.acme.shop.OrderService
+				""".replace("{root}", root.toString());
+
+		List<String> changes = new RuleBasedFixers().with(new RuleBasedFixers.MissingImportFixer()).apply(log, root);
+
+		assertEquals(2, changes.size(), changes.toString());
+		assertEquals("""
+				package com.acme.shop;
+
+				import java.util.List;
+				import com.acme.shop.model.Order;
+				import com.acme.shop.model.Status;
+
+				class OrderService {
+				    List<Order> orders;
+				    Status status = Status.ACTIVE;
+				    Money total;
+				}
+				""", read(root, "src/main/java/com/acme/shop/OrderService.java"));
+	}
+
+	@Test
+	void addsTheLombokAnnotationForAMissingGeneratedMember() throws Exception {
+		Path root = project(true);
+		write(root, "src/main/java/com/acme/shop/model/Order.java", """
+				package com.acme.shop.model;
+
+				import lombok.NoArgsConstructor;
+
+				@NoArgsConstructor
+				public class Order {
+				    private long total;
+				}
+				""");
+		write(root, "src/main/java/com/acme/shop/OrderService.java", """
+				package com.acme.shop;
+
+				import com.acme.shop.model.Order;
+
+				public class OrderService {
+				    long total(Order order) {
+				        log.info("Totalling");
+				        return Order.builder().build().getTotal() + order.getTotal();
+				    }
+				}
+				""");
+		String log = """
+				[ERROR] {root}/src/main/java/com/acme/shop/OrderService.java:[7,9] cannot find symbol
+				  symbol:   variable log
+				  location: class com.acme.shop.OrderService
+				[ERROR] {root}/src/main/java/com/acme/shop/OrderService.java:[8,21] cannot find symbol
+				  symbol:   method builder()
+				  location: class com.acme.shop.model.Order
+				[ERROR] {root}/src/main/java/com/acme/shop/OrderService.java:[8,53] cannot find symbol
+				  symbol:   method getTotal()
+				  location: variable order of type com.acme.shop.model.Order
+				""".replace("{root}", root.toString());
+
+		List<String> changes = new RuleBasedFixers().with(new RuleBasedFixers.LombokAnnotationFixer()).apply(log, root);
+
+		assertEquals(4, changes.size(), changes.toString());
+		assertEquals("""
+				package com.acme.shop.model;
+
+				import lombok.NoArgsConstructor;
+				import lombok.Builder;
+				import lombok.AllArgsConstructor;
+				import lombok.Getter;
+
+				@NoArgsConstructor
+				@Builder
+				@AllArgsConstructor
+				@Getter
+				public class Order {
+				    private long total;
+				}
+				""", read(root, "src/main/java/com/acme/shop/model/Order.java"));
+		String service = read(root, "src/main/java/com/acme/shop/OrderService.java");
+		assertTrue(service.contains("import lombok.extern.slf4j.Slf4j;\n\n@Slf4j\npublic class OrderService {"), service);
+	}
+
+	@Test
+	void leavesLombokAloneWhenTheProjectDoesNotUseIt() throws Exception {
+		Path root = project(false);
+		String source = "package com.acme.shop;\n\npublic class OrderService {\n    void run() { log.info(\"run\"); }\n}\n";
+		write(root, "src/main/java/com/acme/shop/OrderService.java", source);
+		String log = """
+				[ERROR] {root}/src/main/java/com/acme/shop/OrderService.java:[4,18] cannot find symbol
+				  symbol:   variable log
+				  location: class com.acme.shop.OrderService
+				""".replace("{root}", root.toString());
+
+		assertEquals(List.of(), RuleBasedFixers.defaultChain().apply(log, root));
+		assertEquals(source, read(root, "src/main/java/com/acme/shop/OrderService.java"));
+	}
+
+	/**
+	 * A project in its own working tree, so the fixers' staging and manifest stay out of the sources.
+	 */
+	private static Path project(boolean lombok) throws IOException {
+		Path root = Files.createTempDirectory("rule-based-fixers-test");
+		Files.createDirectories(root.resolve(".git"));
+		Files.writeString(root.resolve("pom.xml"), lombok
+				? "<project><dependencies><dependency><groupId>org.projectlombok</groupId><artifactId>lombok</artifactId></dependency></dependencies></project>\n"
+				: "<project/>\n");
+		return root;
+	}
+
+	private static void write(Path root, String path, String content) throws IOException {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+	}
+
+	private static String read(Path root, String path) throws IOException {
+		return Files.readString(root.resolve(path), StandardCharsets.UTF_8);
+	}
+
+}
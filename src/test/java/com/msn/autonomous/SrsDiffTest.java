@@ -0,0 +1,52 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SrsDiffTest {
+
+	private static final String SRS = """
+			Feature: Orders API
+			GitHub-URL: https://github.com/acme/shop.git
+			checkout_branch: main
+
+			h2. Requirements
+			* Create an order with *customer id* and items
+			* List orders by customer
+			""";
+
+	@Test
+	void ignoresWhitespaceMarkupAndLocationKeys() {
+		String cosmetic = """
+				Feature:   Orders API
+				GitHub-URL: [https://github.com/acme/shop-v2.git|https://github.com/acme/shop-v2.git]
+				checkout_branch: develop
+				h3. Requirements
+
+				- Create an order with customer id and items
+				* List orders   by customer
+				""";
+
+		assertEquals("", SrsDiff.changedHunks(SRS, SRS));
+		assertEquals("", SrsDiff.changedHunks(SRS, cosmetic));
+	}
+
+	@Test
+	void reportsOnlyTheChangedHunks() {
+		StringBuilder longer = new StringBuilder(SRS);
+		for (int i = 1; i <= 20; i++) {
+			longer.append("* Rule ").append(i).append('\n');
+		}
+		String changed = longer.toString().replace("* Rule 15", "* Rule 15 applies to refunds too");
+
+		String hunks = SrsDiff.changedHunks(longer.toString(), changed);
+
+		assertEquals("@@\n Rule 13\n Rule 14\n-Rule 15\n+Rule 15 applies to refunds too\n Rule 16\n Rule 17\n", hunks);
+		assertFalse(hunks.contains("Orders API"));
+		assertTrue(SrsDiff.changedHunks(SRS, SRS + "* Cancel an order\n").contains("+Cancel an order"));
+	}
+
+}
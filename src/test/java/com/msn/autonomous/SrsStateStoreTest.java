@@ -0,0 +1,41 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SrsStateStoreTest {
+
+	@Test
+	void keepsTheLatestRevisionAndAnIndexedHistory() throws Exception {
+		Path stateDir = Files.createTempDirectory("srs-state-test").resolve(".ai-state");
+		SrsStateStore store = new SrsStateStore(stateDir);
+		assertNull(store.latest());
+
+		store.record("Feature: Orders API\n\n* Create an order\n", "feature/SHOP-1_1");
+		store.record("Feature: Orders API\n\n* Create an order\n* Cancel an order — refunds included\n", "feature/SHOP-1_2");
+
+		assertEquals("Feature: Orders API\n\n* Create an order\n* Cancel an order — refunds included\n", store.latest());
+		List<SrsStateStore.Revision> revisions = store.revisions();
+		assertEquals(2, revisions.size());
+		assertEquals(2, revisions.get(1).number);
+		assertEquals("feature/SHOP-1_2", revisions.get(1).branch);
+		assertEquals("Feature: Orders API\n\n* Create an order\n", store.read(revisions.get(0)));
+		assertEquals(store.latest(), store.read(revisions.get(1)));
+	}
+
+	@Test
+	void readsTheLastRevisionOfTheLegacyStateFile() throws Exception {
+		Path stateDir = Files.createDirectories(Files.createTempDirectory("srs-state-legacy-test").resolve(".ai-state"));
+		Files.writeString(stateDir.resolve("jira_issue.txt"),
+				"\n\n---\n**Date:** 2024-05-01 10:00:00\n**Branch:** feature/SHOP-1_1\n---\n\nFeature: v1\n--- END ---\n"
+				+ "\n\n---\n**Date:** 2024-05-02 10:00:00\n**Branch:** feature/SHOP-1_2\n---\n\nFeature: v2\n--- END ---\n");
+
+		assertEquals("\nFeature: v2", new SrsStateStore(stateDir).latest());
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class StagedFileWriterTest {
+
+	@Test
+	void commitSkipsFilesWhoseContentDidNotChange() throws Exception {
+		Path workTree = workTree();
+		Path unchanged = workTree.resolve("src/Unchanged.java");
+		Path modified = workTree.resolve("src/Modified.java");
+		Path created = workTree.resolve("src/created/Created.java");
+		Files.createDirectories(unchanged.getParent());
+		Files.writeString(unchanged, "class Unchanged {}\n");
+		Files.writeString(modified, "class Modified {}\n");
+		FileTime before = FileTime.fromMillis(1_000_000_000_000L);
+		Files.setLastModifiedTime(unchanged, before);
+
+		StagedFileWriter writer = new StagedFileWriter(workTree);
+		writer.write(unchanged, "class Unchanged {}\n");
+		writer.write(modified, "class Modified { }\n");
+		writer.write(created, "class Created {}\n");
+		Map<Path, StagedFileWriter.Change> changes = writer.commit();
+
+		assertEquals(List.of(StagedFileWriter.Change.UNCHANGED, StagedFileWriter.Change.MODIFIED, StagedFileWriter.Change.CREATED),
+				List.copyOf(changes.values()));
+		assertEquals(before, Files.getLastModifiedTime(unchanged));
+		assertEquals("class Modified { }\n", Files.readString(modified));
+		assertEquals("class Created {}\n", Files.readString(created));
+		assertEquals(List.of("src/Modified.java", "src/created/Created.java"), StagedFileWriter.readManifest(workTree));
+		assertEquals(StagedFileWriter.Change.UNCHANGED, StagedFileWriter.writeFile(modified, "class Modified { }\n"));
+		assertEquals(List.of(), stagingDirs(workTree.resolve(".git")));
+	}
+
+	@Test
+	void rollbackLeavesTheTreeUntouched() throws Exception {
+		Path workTree = workTree();
+		Path existing = workTree.resolve("src/Existing.java");
+		Files.createDirectories(existing.getParent());
+		Files.writeString(existing, "class Existing {}\n");
+
+		StagedFileWriter writer = new StagedFileWriter(workTree);
+		writer.write(existing, "class Existing { }\n");
+		writer.write(workTree.resolve("src/New.java"), "class New {}\n");
+		assertTrue(writer.exists(workTree.resolve("src/New.java")));
+		assertEquals("class Existing { }\n", writer.read(existing));
+		writer.rollback();
+
+		assertEquals("class Existing {}\n", Files.readString(existing));
+		assertFalse(Files.exists(workTree.resolve("src/New.java")));
+		assertEquals(List.of(), StagedFileWriter.readManifest(workTree));
+		assertEquals(List.of(), stagingDirs(workTree.resolve(".git")));
+	}
+
+	@Test
+	void recordsTheFilesPublishedBeforeAFailedMove() throws Exception {
+		Path workTree = workTree();
+		// A file where the second target's directory should be, so publishing it fails.
+		Files.writeString(workTree.resolve("blocked"), "not a directory\n");
+
+		StagedFileWriter writer = new StagedFileWriter(workTree);
+		writer.write(workTree.resolve("src/First.java"), "class First {}\n");
+		writer.write(workTree.resolve("blocked/Second.java"), "class Second {}\n");
+		writer.write(workTree.resolve("src/Third.java"), "class Third {}\n");
+		assertThrows(IOException.class, writer::commit);
+
+		assertEquals("class First {}\n", Files.readString(workTree.resolve("src/First.java")));
+		assertFalse(Files.exists(workTree.resolve("src/Third.java")));
+		assertEquals(List.of("src/First.java"), StagedFileWriter.readManifest(workTree));
+		assertEquals(List.of(), stagingDirs(workTree.resolve(".git")));
+	}
+
+	@Test
+	void recordsPathsRelativeToTheEnclosingWorkTree() throws Exception {
+		Path workTree = workTree();
+		Path service = workTree.resolve("services/billing");
+		Files.createDirectories(service);
+
+		StagedFileWriter.writeFile(service.resolve("pom.xml"), "<project/>\n");
+		StagedFileWriter.appendToFile(service.resolve("CHANGELOG.md"), "- billing\n");
+
+		List<String> expected = List.of("services/billing/pom.xml", "services/billing/CHANGELOG.md");
+		assertEquals(expected, StagedFileWriter.readManifest(service));
+		assertEquals(expected, StagedFileWriter.readManifest(workTree));
+		assertTrue(Files.exists(workTree.resolve(".git/adk-write-manifest")));
+
+		StagedFileWriter.resetManifest(service);
+		assertEquals(List.of(), StagedFileWriter.readManifest(workTree));
+	}
+
+	@Test
+	void keepsTheManifestInTheGitDirOfALinkedWorktree() throws Exception {
+		Path root = Files.createTempDirectory("staged-file-writer-linked-test");
+		Path gitDir = Files.createDirectories(root.resolve("main/.git/worktrees/wt-1"));
+		Path workTree = Files.createDirectories(root.resolve("wt-1"));
+		Files.writeString(workTree.resolve(".git"), "gitdir: " + gitDir + "\n");
+
+		StagedFileWriter.writeFile(workTree.resolve("src/App.java"), "class App {}\n");
+
+		assertTrue(Files.isRegularFile(workTree.resolve(".git")));
+		assertTrue(Files.exists(gitDir.resolve("adk-write-manifest")));
+		assertEquals(List.of("src/App.java"), StagedFileWriter.readManifest(workTree));
+		assertEquals(List.of(), stagingDirs(gitDir));
+		try (Stream<Path> files = Files.list(workTree)) {
+			assertEquals(List.of(workTree.resolve(".git"), workTree.resolve("src")), files.sorted().toList());
+		}
+	}
+
+	private static Path workTree() throws IOException {
+		Path workTree = Files.createTempDirectory("staged-file-writer-test");
+		Files.createDirectories(workTree.resolve(".git"));
+		return workTree;
+	}
+
+	private static List<Path> stagingDirs(Path dir) throws IOException {
+		try (Stream<Path> entries = Files.list(dir)) {
+			return entries.filter(entry -> entry.getFileName().toString().startsWith(".adk-staging-")).toList();
+		}
+	}
+
+}
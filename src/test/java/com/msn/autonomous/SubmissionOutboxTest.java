@@ -0,0 +1,157 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SubmissionOutboxTest {
+
+	@Test
+	void pushesAndRetriesPullRequestCreationUntilGitHubAccepts() throws Exception {
+		Path root = Files.createTempDirectory("submission-outbox-test");
+		Path clone = cloneWithCommittedBranch(root, "feature/ABC-1");
+
+		AtomicInteger requests = new AtomicInteger();
+		List<String> requestBodies = new ArrayList<>();
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/repos/acme/shop/pulls", exchange -> {
+			requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			if (requests.incrementAndGet() == 1) {
+				respond(exchange, 502, "{\"message\":\"Bad Gateway\"}");
+			} else {
+				respond(exchange, 201, "{\"html_url\":\"https://github.com/acme/shop/pull/7\"}");
+			}
+		});
+		server.start();
+		try {
+			GitHubClient gitHub = new GitHubClient("http://127.0.0.1:" + server.getAddress().getPort(), "token");
+			SubmissionOutbox outbox = new SubmissionOutbox(root.resolve("outbox"), gitHub, Duration.ZERO);
+			outbox.enqueue(clone, "git@github.com:acme/shop.git", "main", "feature/ABC-1", "feat: add app", "Please review.");
+			List<String> created = new ArrayList<>();
+
+			// The push succeeds and the pull request hits a transient error; the entry stays for a retry.
+			assertEquals(Duration.ZERO, outbox.drain(created::add));
+			assertEquals("feat: add app", git(root.resolve("remote.git"), "log", "-1", "--format=%s", "feature/ABC-1").trim());
+			assertTrue(created.isEmpty());
+
+			// The retry resumes at the pull request without pushing again.
+			assertNull(outbox.drain(created::add));
+			assertEquals(List.of("https://github.com/acme/shop/pull/7"), created);
+			assertEquals(2, requests.get());
+			assertTrue(requestBodies.get(1).contains("\"head\":\"feature/ABC-1\""));
+			assertTrue(requestBodies.get(1).contains("\"base\":\"main\""));
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void movesRejectedSubmissionsToFailed() throws Exception {
+		Path root = Files.createTempDirectory("submission-outbox-failed-test");
+		Path clone = cloneWithCommittedBranch(root, "feature/ABC-2");
+
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/repos/acme/shop/pulls", exchange -> respond(exchange, 401, "{\"message\":\"Bad credentials\"}"));
+		server.start();
+		try {
+			GitHubClient gitHub = new GitHubClient("http://127.0.0.1:" + server.getAddress().getPort(), "token");
+			SubmissionOutbox outbox = new SubmissionOutbox(root.resolve("outbox"), gitHub, Duration.ZERO);
+			outbox.enqueue(clone, "https://github.com/acme/shop.git", "main", "feature/ABC-2", "feat: add app", "Please review.");
+
+			assertNull(outbox.drain(url -> { }));
+			try (var failed = Files.list(root.resolve("outbox/failed"))) {
+				assertEquals(1, failed.count());
+			}
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void setsMalformedEntriesAsideAndBacksOffWhileAnotherDrainerHoldsTheLock() throws Exception {
+		Path root = Files.createTempDirectory("submission-outbox-malformed-test");
+		Path clone = cloneWithCommittedBranch(root, "feature/ABC-3");
+		Path outboxDir = root.resolve("outbox");
+		SubmissionOutbox outbox = new SubmissionOutbox(outboxDir, new GitHubClient("http://127.0.0.1:9", "token"), Duration.ZERO);
+		outbox.enqueue(clone, "https://github.com/acme/shop.git", "main", "feature/ABC-3", null, null);
+		Files.writeString(outboxDir.resolve("0-edited.properties"), "branch=feature/ABC-0\nnextAttempt=tomorrow\n");
+
+		try (FileChannel channel = FileChannel.open(outboxDir.resolve("drain.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			FileLock held = channel.lock();
+			try {
+				// Both entries are due, but another drainer has them: wait instead of spinning on the lock.
+				Duration wait = outbox.drain(url -> { });
+				assertTrue(wait.compareTo(Duration.ofSeconds(1)) >= 0);
+			} finally {
+				held.release();
+			}
+		}
+
+		assertNull(outbox.drain(url -> { }));
+		assertTrue(Files.exists(outboxDir.resolve("failed/0-edited.properties")));
+		assertEquals("feat: add app", git(root.resolve("remote.git"), "log", "-1", "--format=%s", "feature/ABC-3").trim());
+	}
+
+	@Test
+	void extractsTheRepositoryFromCloneUrls() throws Exception {
+		assertEquals("acme/shop", GitHubClient.repositoryPath("https://github.com/acme/shop.git"));
+		assertEquals("acme/shop", GitHubClient.repositoryPath("https://github.com/acme/shop"));
+		assertEquals("acme/shop", GitHubClient.repositoryPath("git@github.com:acme/shop.git"));
+		assertEquals("acme/shop", GitHubClient.repositoryPath("ssh://git@github.example.com/acme/shop.git"));
+	}
+
+	private static Path cloneWithCommittedBranch(Path root, String branch) throws Exception {
+		Path remote = root.resolve("remote.git");
+		Path clone = root.resolve("clone");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(root, "clone", remote.toString(), clone.toString());
+		git(clone, "config", "user.name", "Test");
+		git(clone, "config", "user.email", "test@example.com");
+		Files.writeString(clone.resolve("README.md"), "v1\n");
+		git(clone, "add", ".");
+		git(clone, "commit", "-m", "initial");
+		git(clone, "push", "origin", "HEAD:main");
+		git(clone, "checkout", "-b", branch);
+		Files.writeString(clone.resolve("App.java"), "class App {}\n");
+		git(clone, "add", ".");
+		git(clone, "commit", "-m", "feat: add app");
+		return clone;
+	}
+
+	private static void respond(com.sun.net.httpserver.HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static String git(Path directory, String... args) throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.addAll(List.of(args));
+		Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+		String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		if (process.waitFor() != 0) {
+			throw new IOException("git " + String.join(" ", args) + " failed: " + output);
+		}
+		return output;
+	}
+
+}
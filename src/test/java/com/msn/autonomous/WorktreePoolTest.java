@@ -0,0 +1,89 @@
+package com.msn.autonomous;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WorktreePoolTest {
+
+	@Test
+	void leasesRecyclesAndReleasesWorktrees() throws Exception {
+		Path root = Files.createTempDirectory("worktree-pool-test");
+		Path remote = root.resolve("remote.git");
+		Path seed = root.resolve("seed");
+		git(root, "init", "--bare", "--initial-branch=main", remote.toString());
+		git(root, "clone", remote.toString(), seed.toString());
+		git(seed, "config", "user.name", "Test");
+		git(seed, "config", "user.email", "test@example.com");
+		Files.writeString(seed.resolve("README.md"), "v1\n");
+		git(seed, "add", ".");
+		git(seed, "commit", "-m", "initial");
+		git(seed, "push", "origin", "HEAD:main");
+		Path primary = root.resolve("repo");
+		Path pool = root.resolve("repo.worktrees");
+		String head = git(seed, "rev-parse", "HEAD");
+
+		try {
+			// An empty pool: the run gets a new worktree and the pass fills the rest of the pool.
+			Path first = WorktreePool.lease(primary, remote.toUri().toString(), "main", null, 3);
+			awaitBackgroundPass();
+			assertEquals(pool.resolve("wt-1"), first);
+			assertEquals(head, git(first, "rev-parse", "HEAD"));
+			assertEquals("", git(first, "status", "--porcelain"));
+			assertFalse(Files.exists(pool.resolve("wt-1.ready")));
+			assertTrue(Files.exists(pool.resolve("wt-2.ready")));
+			assertTrue(Files.exists(pool.resolve("wt-3.ready")));
+
+			Files.writeString(first.resolve("scratch.txt"), "left behind by the run\n");
+			Files.writeString(first.resolve("README.md"), "edited by the run\n");
+			WorktreePool.releaseLeases();
+			String thirdReadyAt = Files.readString(pool.resolve("wt-3.ready"), StandardCharsets.UTF_8);
+
+			// A ready worktree is leased as it is; the pass recycles the released one and leaves the ready one alone.
+			Path second = WorktreePool.lease(primary, remote.toUri().toString(), "main", null, 3);
+			awaitBackgroundPass();
+			assertEquals(pool.resolve("wt-2"), second);
+			assertFalse(Files.exists(pool.resolve("wt-2.ready")));
+			assertTrue(Files.exists(pool.resolve("wt-1.ready")));
+			assertFalse(Files.exists(first.resolve("scratch.txt")));
+			assertEquals("v1\n", Files.readString(first.resolve("README.md")));
+			assertEquals(thirdReadyAt, Files.readString(pool.resolve("wt-3.ready"), StandardCharsets.UTF_8));
+
+			// Leased worktrees are skipped until they are released.
+			Path third = WorktreePool.lease(primary, remote.toUri().toString(), "main", null, 3);
+			awaitBackgroundPass();
+			assertEquals(pool.resolve("wt-1"), third);
+		} finally {
+			WorktreePool.releaseLeases();
+		}
+	}
+
+	private static void awaitBackgroundPass() throws InterruptedException {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals("worktree-pool")) {
+				thread.join(60_000);
+			}
+		}
+	}
+
+	private static String git(Path directory, String... args) throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.addAll(List.of(args));
+		Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+		String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		if (process.waitFor() != 0) {
+			throw new IOException("git " + String.join(" ", args) + " failed: " + output);
+		}
+		return output;
+	}
+
+}
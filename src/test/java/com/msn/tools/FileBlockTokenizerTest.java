@@ -0,0 +1,158 @@
+package com.msn.tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FileBlockTokenizerTest {
+
+	private static final String RESPONSE = """
+			Some explanation the agent was told not to write.
+			// Create File: src/main/java/com/example/A.java
+			```java
+			package com.example;
+			class A {}
+			```
+
+			// Modify File: src/main/java/com/example/B.java
+			public void added() {}
+			// --- File: pom.xml ---
+			```xml
+			<project/>
+			```
+			// Refactored File: src/main/java/com/example/C.java
+			```java
+			class C {}
+			```
+			""";
+
+	@Test
+	void splitsBothMarkerDialects() {
+		List<FileBlockTokenizer.FileBlock> blocks = FileBlockTokenizer.tokenize(RESPONSE);
+
+		assertEquals(4, blocks.size());
+		assertEquals(FileBlockTokenizer.Action.CREATE, blocks.get(0).action);
+		assertEquals("src/main/java/com/example/A.java", blocks.get(0).path);
+		assertEquals("package com.example;\nclass A {}", blocks.get(0).code());
+		assertEquals(FileBlockTokenizer.Action.MODIFY, blocks.get(1).action);
+		assertEquals("public void added() {}", blocks.get(1).code());
+		assertEquals(FileBlockTokenizer.Action.FILE, blocks.get(2).action);
+		assertEquals("pom.xml", blocks.get(2).path);
+		assertEquals("<project/>", blocks.get(2).code());
+		assertEquals(FileBlockTokenizer.Action.REFACTOR, blocks.get(3).action);
+		assertEquals("class C {}", blocks.get(3).code());
+	}
+
+	@Test
+	void streamedChunksProduceTheSameBlocks() {
+		List<FileBlockTokenizer.FileBlock> streamed = new ArrayList<>();
+		FileBlockTokenizer tokenizer = new FileBlockTokenizer(streamed::add);
+		for (int i = 0; i < RESPONSE.length(); i += 7) {
+			tokenizer.accept(RESPONSE.subSequence(i, Math.min(RESPONSE.length(), i + 7)));
+		}
+		tokenizer.finish();
+
+		List<FileBlockTokenizer.FileBlock> whole = FileBlockTokenizer.tokenize(RESPONSE);
+		assertEquals(whole.size(), streamed.size());
+		for (int i = 0; i < whole.size(); i++) {
+			assertEquals(whole.get(i).path, streamed.get(i).path);
+			assertEquals(whole.get(i).body, streamed.get(i).body);
+		}
+	}
+
+	@Test
+	void tokenizesALargeResponse() {
+		assertEquals(200 * 8, FileBlockTokenizer.tokenize(largeResponse()).size());
+	}
+
+	/**
+	 * Parse work must grow linearly with the response size. The response is read through a counting
+	 * {@link CharSequence}, so the check is deterministic: a parser that rescans the text, as the DOTALL lookahead
+	 * regex did, reads it many times over.
+	 */
+	@Test
+	void readsEachCharacterOfTheResponseAtMostTwice() {
+		String large = largeResponse();
+		String small = large.substring(0, large.length() / 8);
+		// A response cut off before its first line break: the regex retried from every marker to the end of the
+		// input and read this one 2000 times over.
+		String truncated = "// Create File: a ".repeat(2_000);
+
+		for (String response : List.of(small, large, truncated)) {
+			CountingCharSequence counted = new CountingCharSequence(response);
+			FileBlockTokenizer.tokenize(counted);
+			assertTrue(counted.reads <= 2L * response.length(), counted.reads + " reads of " + response.length() + " characters");
+		}
+
+		CountingCharSequence streamed = new CountingCharSequence(large);
+		FileBlockTokenizer tokenizer = new FileBlockTokenizer(block -> { });
+		for (int i = 0; i < large.length(); i += 64) {
+			tokenizer.accept(streamed.subSequence(i, Math.min(large.length(), i + 64)));
+		}
+		tokenizer.finish();
+		assertTrue(streamed.reads <= 2L * large.length(), streamed.reads + " reads of " + large.length() + " characters");
+	}
+
+	private static String largeResponse() {
+		StringBuilder unit = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			unit.append("// Create File: src/main/java/F").append(i).append(".java\n```java\n")
+					.append("    int field = 1; // some generated code\n".repeat(40))
+					.append("```\n");
+		}
+		return unit.toString().repeat(4 * 8);
+	}
+
+	/**
+	 * Counts every character read from the text, including those copied out by {@link #subSequence} and
+	 * {@link #toString}.
+	 */
+	private static final class CountingCharSequence implements CharSequence {
+		private final String text;
+		private final CountingCharSequence parent;
+		private long reads;
+
+		CountingCharSequence(String text) {
+			this(text, null);
+		}
+
+		private CountingCharSequence(String text, CountingCharSequence parent) {
+			this.text = text;
+			this.parent = parent;
+		}
+
+		@Override
+		public int length() {
+			return text.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			count(1);
+			return text.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			// Slicing is free; reading the slice is counted here.
+			return new CountingCharSequence(text.substring(start, end), this);
+		}
+
+		@Override
+		public String toString() {
+			count(text.length());
+			return text;
+		}
+
+		private void count(long characters) {
+			reads += characters;
+			if (parent != null) {
+				parent.count(characters);
+			}
+		}
+	}
+
+}